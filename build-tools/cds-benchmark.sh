@@ -0,0 +1,64 @@
+#!/usr/bin/env bash
+#
+# Copyright 2022-present jabolina
+#
+# Licensed under the Apache License, Version 2.0 (the "License");
+# you may not use this file except in compliance with the License.
+# You may obtain a copy of the License at
+#
+# http://www.apache.org/licenses/LICENSE-2.0
+#
+# Unless required by applicable law or agreed to in writing, software
+# distributed under the License is distributed on an "AS IS" BASIS,
+# WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+# See the License for the specific language governing permissions and
+# limitations under the License.
+#
+# Measures the training run of a namespace with and without a trained AppCDS archive.
+#
+# Usage: build-tools/cds-benchmark.sh <class-path> <package>
+#
+# The class path must only contain jar files. We train the archive, then execute the training run 3 times to warm up
+# the file system caches, and report the median of the next 20 executions, first with only the default JDK archive
+# and then with the trained archive.
+
+set -euo pipefail
+
+if [ "$#" -ne 2 ]; then
+  echo "Usage: $0 <class-path> <package>" >&2
+  exit 1
+fi
+
+CLASS_PATH="$1"
+PACKAGE="$2"
+JAVA="${JAVA_HOME:+$JAVA_HOME/bin/}java"
+MAIN="com.jabolina.sioc.cds.ArchiveTraining"
+WARMUP=3
+RUNS=20
+
+WORK="$(mktemp -d)"
+trap 'rm -rf "$WORK"' EXIT
+
+"$JAVA" -XX:DumpLoadedClassList="$WORK/sioc.classlist" -cp "$CLASS_PATH" "$MAIN" "$PACKAGE" > /dev/null
+"$JAVA" -Xshare:dump -XX:SharedClassListFile="$WORK/sioc.classlist" -XX:SharedArchiveFile="$WORK/sioc.jsa" \
+  -cp "$CLASS_PATH" > /dev/null
+
+# Prints the median wall time in milliseconds of the training run with the given JVM options.
+median() {
+  local times=()
+  for ((i = 0; i < WARMUP + RUNS; i++)); do
+    local start end
+    start=$(date +%s%N)
+    "$JAVA" "$@" -cp "$CLASS_PATH" "$MAIN" "$PACKAGE" > /dev/null
+    end=$(date +%s%N)
+    if [ "$i" -ge "$WARMUP" ]; then
+      times+=($(((end - start) / 1000000)))
+    fi
+  done
+
+  printf '%s\n' "${times[@]}" | sort -n | sed -n "$((RUNS / 2 + 1))p"
+}
+
+echo "Median of $RUNS executions after $WARMUP warm-up executions:"
+echo "  default JDK archive: $(median -Xshare:auto) ms"
+echo "  trained archive:     $(median -XX:SharedArchiveFile="$WORK/sioc.jsa") ms"
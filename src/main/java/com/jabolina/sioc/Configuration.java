@@ -0,0 +1,194 @@
+/*
+ * Copyright 2022-present jabolina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jabolina.sioc;
+
+import com.jabolina.sioc.event.WaitStrategy;
+import com.jabolina.sioc.executor.ExecutorSettings;
+import com.jabolina.sioc.intercept.Interceptor;
+import net.jcip.annotations.Immutable;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Optional settings for a {@link LifecycleManagement}.
+ *
+ * Instances are immutable, every {@code with} method returns a copy with the new value. Start from {@link #defaults()},
+ * which keeps the container behaving exactly as when no configuration is given.
+ */
+@Immutable
+public final class Configuration {
+
+  private static final Configuration DEFAULTS = new Configuration();
+
+  private boolean trackAllocations = false;
+  private int eventBusCapacity = 1024;
+  private int eventBusBatchSize = 64;
+  private WaitStrategy eventBusWaitStrategy = WaitStrategy.BLOCKING;
+  private Interceptor interceptor = null;
+  private Map<String, ExecutorSettings> executors = Collections.emptyMap();
+  private Duration executorDrainTimeout = Duration.ofSeconds(30);
+
+  private Configuration() { }
+
+  private Configuration(Configuration other) {
+    this.trackAllocations = other.trackAllocations;
+    this.eventBusCapacity = other.eventBusCapacity;
+    this.eventBusBatchSize = other.eventBusBatchSize;
+    this.eventBusWaitStrategy = other.eventBusWaitStrategy;
+    this.interceptor = other.interceptor;
+    this.executors = other.executors;
+    this.executorDrainTimeout = other.executorDrainTimeout;
+  }
+
+  /**
+   * The default configuration, with all optional features disabled.
+   *
+   * @return The default configuration.
+   */
+  public static Configuration defaults() {
+    return DEFAULTS;
+  }
+
+  /**
+   * Enable or disable measuring the bytes allocated by each component during construction, injection and start.
+   *
+   * @param enabled: true to measure allocations.
+   * @return A copy of this configuration with the new value.
+   * @see com.jabolina.sioc.metrics.AllocationTracker
+   */
+  public Configuration withAllocationTracking(boolean enabled) {
+    Configuration copy = new Configuration(this);
+    copy.trackAllocations = enabled;
+    return copy;
+  }
+
+  public boolean trackAllocations() {
+    return trackAllocations;
+  }
+
+  /**
+   * Settings for the {@link com.jabolina.sioc.event.EventBus}. The defaults are a capacity of 1024 events, batches of
+   * 64 events, and the {@link WaitStrategy#BLOCKING} strategy.
+   *
+   * @param capacity: The maximum number of pending events, rounded up to a power of two.
+   * @param batchSize: The maximum number of events the bus thread consumes at once.
+   * @param waitStrategy: How the bus thread waits for events.
+   * @return A copy of this configuration with the new values.
+   */
+  public Configuration withEventBus(int capacity, int batchSize, WaitStrategy waitStrategy) {
+    if (capacity <= 0 || batchSize <= 0) {
+      throw new IllegalArgumentException("Event bus capacity and batch size must be positive!");
+    }
+
+    Configuration copy = new Configuration(this);
+    copy.eventBusCapacity = capacity;
+    copy.eventBusBatchSize = batchSize;
+    copy.eventBusWaitStrategy = waitStrategy;
+    return copy;
+  }
+
+  public int eventBusCapacity() {
+    return eventBusCapacity;
+  }
+
+  public int eventBusBatchSize() {
+    return eventBusBatchSize;
+  }
+
+  public WaitStrategy eventBusWaitStrategy() {
+    return eventBusWaitStrategy;
+  }
+
+  /**
+   * Intercept the calls to the public methods of all components. Without an interceptor, the default, the components
+   * are used as they are.
+   *
+   * @param interceptor: The interceptor receiving the calls, or null to disable.
+   * @return A copy of this configuration with the new value.
+   * @see com.jabolina.sioc.intercept.LatencyInterceptor
+   */
+  public Configuration withInterceptor(Interceptor interceptor) {
+    Configuration copy = new Configuration(this);
+    copy.interceptor = interceptor;
+    return copy;
+  }
+
+  public Optional<Interceptor> interceptor() {
+    return Optional.ofNullable(interceptor);
+  }
+
+  /**
+   * Declare an executor with a fixed number of platform threads, injected in the fields with the {@link Execution}
+   * annotation with the same name. Using the {@link Execution#DEFAULT} name replaces the default executor.
+   *
+   * @param name: The executor name.
+   * @param threads: The number of threads.
+   * @return A copy of this configuration with the new executor.
+   */
+  public Configuration withExecutor(String name, int threads) {
+    return withExecutor(ExecutorSettings.platform(name, threads));
+  }
+
+  /**
+   * Declare an executor starting a virtual thread per task, injected in the fields with the {@link Execution}
+   * annotation with the same name. Before Java 21, the executor uses a platform thread per task.
+   *
+   * @param name: The executor name.
+   * @return A copy of this configuration with the new executor.
+   */
+  public Configuration withVirtualExecutor(String name) {
+    return withExecutor(ExecutorSettings.virtual(name));
+  }
+
+  public Collection<ExecutorSettings> executors() {
+    return executors.values();
+  }
+
+  /**
+   * How long the stop waits for the tasks of each executor, 30 seconds by default. After that, the running tasks are
+   * interrupted and the queued tasks are discarded.
+   *
+   * @param timeout: The maximum time to wait for the tasks.
+   * @return A copy of this configuration with the new value.
+   */
+  public Configuration withExecutorDrainTimeout(Duration timeout) {
+    if (timeout.isNegative()) {
+      throw new IllegalArgumentException("Executor drain timeout can not be negative!");
+    }
+
+    Configuration copy = new Configuration(this);
+    copy.executorDrainTimeout = timeout;
+    return copy;
+  }
+
+  public Duration executorDrainTimeout() {
+    return executorDrainTimeout;
+  }
+
+  private Configuration withExecutor(ExecutorSettings settings) {
+    Map<String, ExecutorSettings> executors = new LinkedHashMap<>(this.executors);
+    executors.put(settings.name(), settings);
+
+    Configuration copy = new Configuration(this);
+    copy.executors = Collections.unmodifiableMap(executors);
+    return copy;
+  }
+}
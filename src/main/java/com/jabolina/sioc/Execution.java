@@ -0,0 +1,57 @@
+/*
+ * Copyright 2022-present jabolina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jabolina.sioc;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Selects the executor injected in a field declared as {@link java.util.concurrent.Executor} or
+ * {@link java.util.concurrent.ExecutorService}, together with the {@link Inject} annotation. Fields without this
+ * annotation receive the {@link #DEFAULT} executor, without a concurrency limit.
+ *
+ * The executors are owned by the container, which creates them before the components start and drains them after
+ * the components stop. Components must not create their own thread pools.
+ *
+ * @see Configuration#withExecutor(String, int)
+ * @see Configuration#withVirtualExecutor(String)
+ */
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Execution {
+
+  /**
+   * The executor available without configuration, with one thread per available processor.
+   */
+  String DEFAULT = "default";
+
+  /**
+   * The name of an executor in the {@link Configuration}.
+   *
+   * @return the executor name.
+   */
+  String value() default DEFAULT;
+
+  /**
+   * The maximum number of tasks from this field running at the same time, shared by all instances of the component.
+   * Other tasks wait without holding a thread. If this is 0, only the executor limits the tasks.
+   *
+   * @return the concurrency limit.
+   */
+  int concurrency() default 0;
+}
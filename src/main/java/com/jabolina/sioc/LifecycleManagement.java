@@ -15,7 +15,13 @@
  */
 package com.jabolina.sioc;
 
+import com.jabolina.sioc.event.EventBus;
+import com.jabolina.sioc.executor.ExecutorRegistry;
 import com.jabolina.sioc.graph.TopologicalSorting;
+import com.jabolina.sioc.metrics.AllocationReport;
+import com.jabolina.sioc.metrics.AllocationTracker;
+import com.jabolina.sioc.metrics.ExecutorMetrics;
+import com.jabolina.sioc.metrics.PoolMetrics;
 import com.jabolina.sioc.util.PackageLoader;
 import com.jabolina.sioc.util.Reflections;
 import net.jcip.annotations.GuardedBy;
@@ -24,13 +30,20 @@ import net.jcip.annotations.ThreadSafe;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.stream.Collectors;
 
 import static com.jabolina.sioc.util.Reflections.containsAnnotation;
@@ -49,24 +62,74 @@ import static com.jabolina.sioc.util.Reflections.containsAnnotation;
  * only instantiates and inject the classes, we moved the start and stop operations in distinct methods.
  *
  * The start operation begins after calling the {@link #start()} method. This will iterate in all the components within
- * the namespace and call the method with the {@link Start} annotation. The same applies to the stop process, start with
- * the {@link #stop()} method.
+ * the namespace, in the topological order, and call the method with the {@link Start} annotation. The same applies to
+ * the stop process, start with the {@link #stop()} method, which iterates in the reverse order.
+ *
+ * After initialized, {@link #reload()} picks up new, removed or changed classes without stopping the whole namespace.
  *
  * At the time of writing, we are handling only synchronous methods.
+ *
+ * With {@link Configuration#withAllocationTracking(boolean)} enabled, we account the bytes allocated in the calling
+ * thread during the construction, injection and start of each component. The result is available through
+ * {@link #allocationReport()}. The instances created while injecting or starting another component are accounted to
+ * their own component, and the instances created after the start, e.g., borrowed from a pool, are not accounted.
+ *
+ * The pool of a {@link Scope#POOLED} component is filled before its dependents start, and drained after its dependents
+ * stop. The pool usage is available through {@link #poolMetrics()}.
+ *
+ * Each namespace has an {@link EventBus}, injected in fields declared with its type. The methods with the
+ * {@link Subscribe} annotation receive the events only while their component is started: a component subscribes after
+ * its {@link Start} method, and unsubscribes before its {@link Stop} method, following the topological order as the
+ * rest of the lifecycle. The bus starts before all components, and stops after all of them.
+ *
+ * The executors are injected in fields declared as {@link Executor} or {@link ExecutorService}, and selected with the
+ * {@link Execution} annotation. The executors start after the bus and before all components, and stop after all
+ * components, waiting for the submitted tasks, and before the bus.
+ *
+ * With {@link Configuration#withInterceptor(com.jabolina.sioc.intercept.Interceptor)}, the components are instances of
+ * generated subclasses, reporting the calls to their public methods to the interceptor.
  */
 @ThreadSafe
 public class LifecycleManagement {
 
   private final String packageName;
 
+  // The components in the topological order, and the dependency graph they were sorted from.
+  @GuardedBy("this")
+  private List<Class<?>> components = new ArrayList<>();
   @GuardedBy("this")
-  private final List<Object> components = new ArrayList<>();
-  private final WiringManager wiring = new WiringManager();
+  private Map<Class<?>, Collection<Class<?>>> graph = new HashMap<>();
+  @GuardedBy("this")
+  private ClassLoader loader = ClassLoader.getSystemClassLoader();
+  @GuardedBy("this")
+  private boolean started = false;
+  // The names of the started components with Subscribe methods.
+  @GuardedBy("this")
+  private final Set<String> subscribed = new HashSet<>();
+
+  private final AllocationTracker allocations;
+  private final WiringManager wiring;
+  private final EventBus events;
+  private final ExecutorRegistry executors;
 
   private volatile boolean initialized = false;
 
   public LifecycleManagement(String packageName) {
+    this(packageName, Configuration.defaults());
+  }
+
+  public LifecycleManagement(String packageName, Configuration configuration) {
     this.packageName = packageName;
+    this.allocations = configuration.trackAllocations()
+        ? AllocationTracker.create()
+        : AllocationTracker.disabled();
+    this.wiring = new WiringManager(allocations, configuration.interceptor().orElse(null));
+    this.events = new EventBus(packageName, configuration.eventBusCapacity(), configuration.eventBusBatchSize(),
+        configuration.eventBusWaitStrategy());
+    this.wiring.provide(EventBus.class, events);
+    this.executors = new ExecutorRegistry(configuration.executors(), configuration.executorDrainTimeout());
+    this.wiring.provide(Executor.class, executors::executor);
+    this.wiring.provide(ExecutorService.class, executors::executor);
   }
 
   /**
@@ -78,9 +141,96 @@ public class LifecycleManagement {
     }
 
     initialized = true;
-    Map<Class<?>, Collection<Class<?>>> graph = dependencyGraph(lifecycleClasses());
-    List<Class<?>> topologicalSorted = TopologicalSorting.sort(graph);
-    components.addAll(wiring.wire(topologicalSorted));
+    graph = dependencyGraph(lifecycleClasses(loader));
+    components = TopologicalSorting.sort(graph);
+    verifySubscribers(components);
+    allocations.track(() -> wiring.wire(components));
+  }
+
+  /**
+   * Scan the package again, and replace only the components affected by the changes, using the same
+   * {@link ClassLoader} from the previous scan.
+   *
+   * @return The names of the affected components.
+   * @see #reload(ClassLoader)
+   */
+  public synchronized Set<String> reload() {
+    return reload(loader);
+  }
+
+  /**
+   * Scan the package again with the given {@link ClassLoader}, and replace only the components affected by the changes.
+   *
+   * A component changed if it was added, removed, or if the scan loaded a distinct class with its name, e.g., the
+   * class was defined again by a new loader. The affected components are the changed ones plus everything that
+   * transitively depends on them, since these hold references to the old instances. If the namespace is started, we
+   * stop the affected components in the reverse topological order, wire them again, and start them in the
+   * topological order. All other components keep running with the same instances. The affected components stop
+   * receiving events before they stop, and events published while they are replaced only reach the others.
+   *
+   * Components loaded with distinct loaders must agree on the types they share, so a class loader replacing a
+   * component must also replace its dependents.
+   *
+   * The new classes are verified before changing anything, so a reload removing a component that others still inject
+   * fails and keeps the container as it was. If wiring the affected components fails, they stay stopped and removed,
+   * while the other components keep running, and the next reload tries to wire them again.
+   *
+   * @param loader: The loader to find and load the classes.
+   * @return The names of the affected components, or all components if the namespace was not initialized.
+   */
+  public synchronized Set<String> reload(ClassLoader loader) {
+    if (!initialized) {
+      this.loader = loader;
+      initialize();
+      return names(components);
+    }
+
+    // Validated before changing anything, a failure here keeps the container as it was.
+    Map<Class<?>, Collection<Class<?>>> next = dependencyGraph(lifecycleClasses(loader));
+    List<Class<?>> sorted = TopologicalSorting.sort(next);
+    verifySubscribers(sorted);
+    this.loader = loader;
+    Set<String> affected = affected(graph, next);
+    if (affected.isEmpty()) {
+      return affected;
+    }
+
+    for (int i = components.size() - 1; i >= 0; i--) {
+      Class<?> component = components.get(i);
+      if (affected.contains(WiringManager.componentName(component))) {
+        if (started) {
+          stop(component);
+        }
+        forget(component);
+      }
+    }
+
+    List<Class<?>> rewire = sorted.stream()
+        .filter(c -> affected.contains(WiringManager.componentName(c)))
+        .collect(Collectors.toList());
+    try {
+      allocations.track(() -> wiring.wire(rewire));
+    } catch (RuntimeException e) {
+      // Keep only what is still wired, the next reload sees the affected components as added and wires them again.
+      rewire.forEach(this::forget);
+      graph = graph.entrySet().stream()
+          .filter(entry -> !affected.contains(WiringManager.componentName(entry.getKey())))
+          .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+      components = components.stream()
+          .filter(c -> !affected.contains(WiringManager.componentName(c)))
+          .collect(Collectors.toList());
+      throw e;
+    }
+    graph = next;
+    components = sorted;
+
+    if (started) {
+      for (Class<?> component : rewire) {
+        start(component);
+      }
+    }
+
+    return affected;
   }
 
   /**
@@ -89,7 +239,12 @@ public class LifecycleManagement {
    */
   public synchronized void start() {
     if (initialized) {
-      componentMethod(Start.class);
+      started = true;
+      events.start();
+      executors.start();
+      for (Class<?> component : components) {
+        start(component);
+      }
     }
   }
 
@@ -99,27 +254,234 @@ public class LifecycleManagement {
    */
   public synchronized void stop() {
     if (initialized) {
-      componentMethod(Stop.class);
+      started = false;
+      for (int i = components.size() - 1; i >= 0; i--) {
+        stop(components.get(i));
+      }
+      executors.stop();
+      events.stop();
     }
   }
 
-  private synchronized void componentMethod(Class<? extends Annotation> annotation) {
-    for (Object component : components) {
-      Reflections.findMethodWith(component, annotation)
-          .ifPresent(m -> {
-            try {
-              m.invoke(component);
-            } catch (IllegalAccessException | InvocationTargetException e) {
-              throw new RuntimeException(e);
-            }
-          });
+  /**
+   * Execute the whole lifecycle once, initializing, starting and stopping all components. This is the training run
+   * that loads every class the namespace needs, used to record the classes for an archive.
+   *
+   * @see com.jabolina.sioc.cds.ArchiveTraining
+   */
+  public synchronized void train() {
+    initialize();
+    start();
+    stop();
+  }
+
+  /**
+   * Retrieve the managed instance of the given type, iff the components are already initialized.
+   *
+   * @param type: The component class, with the {@link Managed} annotation.
+   * @param <T>: The component type.
+   * @return An {@link Optional} with the instance, or empty if there is no such component.
+   */
+  public synchronized <T> Optional<T> component(Class<T> type) {
+    if (!initialized || !isManagedClass(type)) {
+      return Optional.empty();
     }
+
+    return wiring.component(type).map(type::cast);
+  }
+
+  /**
+   * The bus delivering events to the components of this namespace.
+   *
+   * @return The namespace {@link EventBus}.
+   */
+  public EventBus events() {
+    return events;
+  }
+
+  /**
+   * The usage of the executors of this namespace.
+   *
+   * @return A snapshot of each executor.
+   */
+  public List<ExecutorMetrics> executorMetrics() {
+    return executors.metrics();
+  }
+
+  /**
+   * The bytes allocated by each component so far, ranked by cost. The report is empty if allocation tracking is
+   * disabled in the {@link Configuration} or not supported by the JVM.
+   *
+   * @return A snapshot of the allocations.
+   */
+  public AllocationReport allocationReport() {
+    return allocations.report();
+  }
+
+  /**
+   * The usage of the pools of all {@link Scope#POOLED} components.
+   *
+   * @return A snapshot of each pool.
+   */
+  public synchronized List<PoolMetrics> poolMetrics() {
+    List<PoolMetrics> metrics = new ArrayList<>();
+    for (Pool<?> pool : wiring.pools()) {
+      metrics.add(pool.metrics());
+    }
+
+    return metrics;
+  }
+
+  private void start(Class<?> component) {
+    allocations.track(() -> {
+      wiring.pool(component).ifPresent(Pool::fill);
+
+      String name = WiringManager.componentName(component);
+      for (Object instance : wiring.instances(component)) {
+        // The lookup happens before the mark, only the method execution is accounted to the component.
+        Optional<Method> method = componentMethod(instance, Start.class);
+        if (method.isPresent()) {
+          long mark = allocations.mark();
+          invoke(instance, method.get());
+          allocations.record(name, AllocationTracker.Phase.START, mark);
+        }
+      }
+    });
+
+    if (isSubscriber(component) && subscribed.add(WiringManager.componentName(component))) {
+      events.register(subscribers());
+    }
+  }
+
+  private void forget(Class<?> component) {
+    wiring.remove(component);
+    executors.remove(component);
+  }
+
+  private void stop(Class<?> component) {
+    if (subscribed.remove(WiringManager.componentName(component))) {
+      events.register(subscribers());
+    }
+
+    for (Object instance : wiring.instances(component)) {
+      componentMethod(instance, Stop.class).ifPresent(m -> invoke(instance, m));
+    }
+
+    wiring.pool(component).ifPresent(Pool::drain);
+  }
+
+  private Optional<Method> componentMethod(Object component, Class<? extends Annotation> annotation) {
+    Optional<Method> method = Reflections.findMethodWith(component, annotation);
+    method.ifPresent(Method::trySetAccessible);
+    return method;
+  }
+
+  private void invoke(Object component, Method method) {
+    try {
+      method.invoke(component);
+    } catch (IllegalAccessException | InvocationTargetException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * The instances of the started components with {@link Subscribe} methods, in the topological order.
+   */
+  private List<Object> subscribers() {
+    List<Object> subscribers = new ArrayList<>();
+    for (Class<?> component : components) {
+      if (subscribed.contains(WiringManager.componentName(component))) {
+        subscribers.addAll(wiring.instances(component));
+      }
+    }
+
+    return subscribers;
+  }
+
+  private static boolean isSubscriber(Class<?> component) {
+    return !Reflections.findMethodsWith(component, Subscribe.class).isEmpty();
+  }
+
+  /**
+   * Only singletons can subscribe, since other scopes have many or short-lived instances.
+   */
+  private static void verifySubscribers(Collection<Class<?>> classes) {
+    for (Class<?> component : classes) {
+      if (isSubscriber(component) && component.getAnnotation(Managed.class).scope() != Scope.SINGLETON) {
+        throw new RuntimeException("Component " + component.getName() + " with @Subscribe must be a singleton!");
+      }
+    }
+  }
+
+  /**
+   * The names of the components that changed between the graphs, and the names of everything that depends on these.
+   */
+  private Set<String> affected(Map<Class<?>, Collection<Class<?>>> previous,
+                               Map<Class<?>, Collection<Class<?>>> next) {
+    Map<String, Class<?>> before = byName(previous.keySet());
+    Map<String, Class<?>> after = byName(next.keySet());
+
+    Set<String> names = new HashSet<>(before.keySet());
+    names.addAll(after.keySet());
+
+    // The class only changes when defined again, and then it is a distinct object.
+    Deque<String> pending = new ArrayDeque<>();
+    for (String name : names) {
+      if (before.get(name) != after.get(name)) {
+        pending.push(name);
+      }
+    }
+
+    Map<String, Set<String>> dependents = new HashMap<>();
+    for (Map<Class<?>, Collection<Class<?>>> graph : List.of(previous, next)) {
+      for (Map.Entry<Class<?>, Collection<Class<?>>> entry : graph.entrySet()) {
+        for (Class<?> dependency : entry.getValue()) {
+          dependents.computeIfAbsent(WiringManager.componentName(dependency), ignore -> new HashSet<>())
+              .add(WiringManager.componentName(entry.getKey()));
+        }
+      }
+    }
+
+    Set<String> affected = new HashSet<>(pending);
+    while (!pending.isEmpty()) {
+      for (String dependent : dependents.getOrDefault(pending.pop(), Set.of())) {
+        if (affected.add(dependent)) {
+          pending.push(dependent);
+        }
+      }
+    }
+
+    return affected;
+  }
+
+  private Map<String, Class<?>> byName(Collection<Class<?>> classes) {
+    Map<String, Class<?>> named = new HashMap<>();
+    for (Class<?> clazz : classes) {
+      named.put(WiringManager.componentName(clazz), clazz);
+    }
+
+    return named;
+  }
+
+  private Set<String> names(Collection<Class<?>> classes) {
+    return new HashSet<>(byName(classes).keySet());
   }
 
   private Map<Class<?>, Collection<Class<?>>> dependencyGraph(Collection<Class<?>> classes) {
+    // A dependent not defined again still references the previous class, the edge must point to the scanned one.
+    Map<String, Class<?>> scanned = byName(classes);
     Map<Class<?>, Collection<Class<?>>> dependency = new HashMap<>();
     for (Class<?> clazz : classes) {
-      dependency.putIfAbsent(clazz, dependencies(clazz));
+      List<Class<?>> dependencies = new ArrayList<>();
+      for (Class<?> d : dependencies(clazz)) {
+        Class<?> resolved = scanned.get(WiringManager.componentName(d));
+        if (resolved == null) {
+          throw new RuntimeException("Component " + clazz.getName() + " depends on " + d.getName()
+              + ", which is not a managed component of the namespace!");
+        }
+        dependencies.add(resolved);
+      }
+      dependency.putIfAbsent(clazz, dependencies);
     }
 
     return dependency;
@@ -129,12 +491,13 @@ public class LifecycleManagement {
     List<Field> fields = Arrays.asList(clazz.getDeclaredFields());
     return fields.stream()
         .filter(this::isDependency)
-        .map(Field::getType)
+        .map(WiringManager::dependencyType)
+        .distinct()
         .collect(Collectors.toList());
   }
 
-  private Set<Class<?>> lifecycleClasses() {
-    Collection<Class<?>> loaded = PackageLoader.load(packageName);
+  private Set<Class<?>> lifecycleClasses(ClassLoader loader) {
+    Collection<Class<?>> loaded = PackageLoader.load(packageName, loader);
     return loaded.stream()
         .filter(this::isManagedClass)
         .collect(Collectors.toSet());
@@ -145,6 +508,6 @@ public class LifecycleManagement {
   }
 
   private boolean isDependency(Field field) {
-    return containsAnnotation(field, Inject.class);
+    return containsAnnotation(field, Inject.class) && !wiring.provides(field.getType());
   }
 }
@@ -40,4 +40,19 @@ public @interface Managed {
    * @return the custom component name.
    */
   String name() default "";
+
+  /**
+   * Defines how many instances are created for the component.
+   *
+   * @return the component scope.
+   */
+  Scope scope() default Scope.SINGLETON;
+
+  /**
+   * The number of instances for scopes with more than one instance, ignored otherwise. If this is 0, the number of
+   * available processors is used instead.
+   *
+   * @return the number of instances.
+   */
+  int instances() default 0;
 }
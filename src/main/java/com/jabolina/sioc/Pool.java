@@ -0,0 +1,170 @@
+/*
+ * Copyright 2022-present jabolina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jabolina.sioc;
+
+import com.jabolina.sioc.metrics.PoolMetrics;
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * A bounded pool with instances of a component with the {@link Scope#POOLED} scope.
+ *
+ * The pool is a fixed array of slots, and we borrow and release instances by swapping the slots with CAS, so no
+ * operation blocks. Each thread starts looking at a distinct slot to reduce the contention. When there is no instance
+ * available, borrowing creates a new one, which is accounted as a miss. When the pool is full, released instances are
+ * discarded. The container fills the pool during start and drains it during stop, and instances released while the
+ * pool is drained are discarded too. Releasing an instance already in the pool is an error, otherwise two callers
+ * could borrow the same instance.
+ *
+ * <pre>
+ *   Parser parser = pool.borrow();
+ *   try {
+ *     // Use the instance.
+ *   } finally {
+ *     pool.release(parser);
+ *   }
+ * </pre>
+ *
+ * @param <T>: Type of the component.
+ */
+@ThreadSafe
+public final class Pool<T> {
+
+  private final String name;
+  private final Supplier<T> factory;
+  private final AtomicReferenceArray<T> slots;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  // Only holds instances between fill and drain.
+  private volatile boolean open = false;
+
+  Pool(String name, int capacity, Supplier<T> factory) {
+    this.name = name;
+    this.factory = factory;
+    this.slots = new AtomicReferenceArray<>(capacity);
+  }
+
+  /**
+   * Take an instance from the pool, or create a new instance if the pool is empty.
+   *
+   * @return An instance with the dependencies injected.
+   */
+  public T borrow() {
+    int capacity = slots.length();
+    int start = start(capacity);
+    for (int i = 0; i < capacity; i++) {
+      int index = (start + i) % capacity;
+      T instance = slots.get(index);
+      if (instance != null && slots.compareAndSet(index, instance, null)) {
+        hits.increment();
+        return instance;
+      }
+    }
+
+    misses.increment();
+    return factory.get();
+  }
+
+  /**
+   * Return the instance to the pool. The instance is discarded if the pool is full or drained.
+   *
+   * @param instance: An instance previously borrowed.
+   * @throws IllegalStateException if the instance is already in the pool.
+   */
+  public void release(T instance) {
+    if (instance == null || !open) {
+      return;
+    }
+
+    int capacity = slots.length();
+    for (int i = 0; i < capacity; i++) {
+      if (slots.get(i) == instance) {
+        throw new IllegalStateException("Instance already released to pool '" + name + "'!");
+      }
+    }
+
+    int start = start(capacity);
+    for (int i = 0; i < capacity; i++) {
+      int index = (start + i) % capacity;
+      if (slots.get(index) == null && slots.compareAndSet(index, null, instance)) {
+        // Drained concurrently, the instance must not stay in the pool.
+        if (!open) {
+          slots.compareAndSet(index, instance, null);
+        }
+        return;
+      }
+    }
+  }
+
+  public int capacity() {
+    return slots.length();
+  }
+
+  /**
+   * The number of instances available in the pool. This is only an estimate under concurrent access.
+   *
+   * @return The available instances.
+   */
+  public int available() {
+    int available = 0;
+    for (int i = 0; i < slots.length(); i++) {
+      if (slots.get(i) != null) {
+        available++;
+      }
+    }
+
+    return available;
+  }
+
+  /**
+   * A snapshot of the pool usage.
+   *
+   * @return The pool metrics.
+   */
+  public PoolMetrics metrics() {
+    return new PoolMetrics(name, capacity(), available(), hits.sum(), misses.sum());
+  }
+
+  /**
+   * Create instances until all slots are filled.
+   */
+  void fill() {
+    open = true;
+    for (int i = 0; i < slots.length(); i++) {
+      if (slots.get(i) == null) {
+        slots.compareAndSet(i, null, factory.get());
+      }
+    }
+  }
+
+  /**
+   * Remove all instances from the pool.
+   */
+  void drain() {
+    open = false;
+    for (int i = 0; i < slots.length(); i++) {
+      slots.set(i, null);
+    }
+  }
+
+  private static int start(int capacity) {
+    return (int) (Thread.currentThread().getId() % capacity);
+  }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2022-present jabolina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jabolina.sioc;
+
+/**
+ * Defines how many instances the container creates for a {@link Managed} component, and how they are injected.
+ */
+public enum Scope {
+
+  /**
+   * A single instance for the whole namespace. This is the default.
+   */
+  SINGLETON,
+
+  /**
+   * A fixed number of instances, defined by {@link Managed#instances()}. Dependents must declare the field as
+   * {@link Striped}, which selects one instance for the calling thread. Useful for components with mutable state
+   * that would be contended if shared by all threads, e.g., buffers and counters.
+   *
+   * The {@link Start} and {@link Stop} methods are called on all instances.
+   *
+   * This is not transparent to the callers. Changing a component to this scope requires changing every injection
+   * point from {@code T} to {@code Striped<T>}, and every call site to select the instance with
+   * {@link Striped#get()}. Injecting the component in a field declared as {@code T} fails during wiring.
+   */
+  STRIPED,
+
+  /**
+   * A new instance for each injection point, and for each lookup through
+   * {@link LifecycleManagement#component(Class)}. The container only creates and injects the instances, the
+   * {@link Start} and {@link Stop} methods are not called.
+   */
+  PROTOTYPE,
+
+  /**
+   * Instances recycled through a bounded {@link Pool} with {@link Managed#instances()} capacity. Dependents must
+   * declare the field as {@link Pool}, and borrow and release the instances. The container fills the pool during start
+   * and drains it during stop. As with {@link #PROTOTYPE}, the {@link Start} and {@link Stop} methods are not called.
+   */
+  POOLED,
+}
@@ -24,7 +24,7 @@ import java.lang.annotation.Target;
  * In classes that have the {@link Managed} annotation, a method can have this annotation.
  *
  * The method with this annotation is guaranteed that all fields with the {@link Inject} annotations are already
- * injected, though is not guaranteed that these are still running.
+ * injected and that these are still running, since components stop in the reverse topological order.
  *
  * The method call is guaranteed.
  */
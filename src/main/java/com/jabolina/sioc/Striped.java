@@ -0,0 +1,98 @@
+/*
+ * Copyright 2022-present jabolina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jabolina.sioc;
+
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Selects one of the instances of a component with the {@link Scope#STRIPED} scope.
+ *
+ * The instance is selected by hashing the current thread id, so the same thread always receives the same instance,
+ * and distinct threads are spread between the instances. The selection does not allocate nor synchronize. Note that
+ * this reduces the contention, but an instance can still be shared by threads that hash to the same stripe.
+ *
+ * This type can also be used to inject a {@link Scope#SINGLETON} component, then it always selects the single instance.
+ *
+ * @param <T>: Type of the component.
+ */
+@ThreadSafe
+public final class Striped<T> {
+
+  private final Object[] instances;
+
+  // When the size is a power of two we select with a mask instead of the modulo.
+  private final int mask;
+
+  Striped(List<?> instances) {
+    assert !instances.isEmpty() : "Striped component without instances!";
+    this.instances = instances.toArray();
+    this.mask = Integer.bitCount(this.instances.length) == 1
+        ? this.instances.length - 1
+        : -1;
+  }
+
+  /**
+   * The instance for the current thread.
+   *
+   * @return The selected instance.
+   */
+  @SuppressWarnings("unchecked")
+  public T get() {
+    int hash = hash(Thread.currentThread().getId());
+    int index = mask >= 0
+        ? hash & mask
+        : Math.floorMod(hash, instances.length);
+    return (T) instances[index];
+  }
+
+  /**
+   * The instance at the given position.
+   *
+   * @param index: Position between 0 and {@link #size()}.
+   * @return The instance at the position.
+   */
+  @SuppressWarnings("unchecked")
+  public T get(int index) {
+    return (T) instances[index];
+  }
+
+  public int size() {
+    return instances.length;
+  }
+
+  /**
+   * All the instances.
+   *
+   * @return An unmodifiable list with all instances.
+   */
+  public List<Object> instances() {
+    return Collections.unmodifiableList(Arrays.asList(instances));
+  }
+
+  // The finalizer of MurmurHash3, so sequential thread ids are spread between the stripes.
+  private static int hash(long value) {
+    value ^= value >>> 33;
+    value *= 0xff51afd7ed558ccdL;
+    value ^= value >>> 33;
+    value *= 0xc4ceb9fe1a85ec53L;
+    value ^= value >>> 33;
+    return (int) value;
+  }
+}
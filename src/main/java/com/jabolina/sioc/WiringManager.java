@@ -15,29 +15,100 @@
  */
 package com.jabolina.sioc;
 
+import com.jabolina.sioc.intercept.Interception;
+import com.jabolina.sioc.intercept.Interceptor;
+import com.jabolina.sioc.metrics.AllocationTracker;
 import com.jabolina.sioc.util.Reflections;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 /**
  * Class responsible for instantiation and injection of classes within a single namespace.
  */
 public class WiringManager {
 
-  // We keep the namespace components in memory during this process.
-  private final Map<String, Object> components = new HashMap<>();
+  // We keep the namespace components in memory during this process. Pools create instances in the application
+  // threads, reading the components while a reload can replace them.
+  private final Map<String, Object> components = new ConcurrentHashMap<>();
+  // Objects the container itself offers for injection, by the field type.
+  private final Map<Class<?>, Function<Field, ?>> provided = new ConcurrentHashMap<>();
+  // The class to instantiate for each component, a generated subclass when intercepting.
+  private final Map<Class<?>, Class<?>> concrete = new ConcurrentHashMap<>();
+  private final AllocationTracker allocations;
+  private final Interceptor interceptor;
+
+  public WiringManager() {
+    this(AllocationTracker.disabled());
+  }
+
+  /**
+   * Creates a manager that accounts the bytes allocated during construction and injection of each component.
+   *
+   * @param allocations: The tracker to record the allocations.
+   */
+  public WiringManager(AllocationTracker allocations) {
+    this(allocations, null);
+  }
+
+  /**
+   * Creates a manager that instantiates the components with interception.
+   *
+   * @param allocations: The tracker to record the allocations.
+   * @param interceptor: The interceptor for the component methods, or null to instantiate the components as they are.
+   * @see Interception
+   */
+  public WiringManager(AllocationTracker allocations, Interceptor interceptor) {
+    this.allocations = allocations;
+    this.interceptor = interceptor;
+  }
+
+  /**
+   * Offer an object created by the container for injection. Fields with the {@link Inject} annotation and declared
+   * with exactly the given type receive the object, instead of a component.
+   *
+   * @param type: The field type.
+   * @param instance: The object to inject.
+   */
+  public void provide(Class<?> type, Object instance) {
+    provide(type, ignore -> instance);
+  }
+
+  /**
+   * Offer objects created by the container for injection, created for each field. Fields with the {@link Inject}
+   * annotation and declared with exactly the given type receive the object, instead of a component.
+   *
+   * @param type: The field type.
+   * @param factory: Creates the object to inject in the field.
+   */
+  public void provide(Class<?> type, Function<Field, ?> factory) {
+    provided.put(type, factory);
+  }
+
+  /**
+   * Verifies if the container provides objects for fields of the given type.
+   *
+   * @param type: The field type.
+   * @return true if the type is provided, false otherwise.
+   */
+  public boolean provides(Class<?> type) {
+    return provided.containsKey(type);
+  }
 
   /**
    * Given the list ordered with the classes with the {@link Managed} annotation, we start the wiring process. This
    * process involves in instantiating the classes using the default no-argument constructor and then injecting the
-   * dependencies.
+   * dependencies. The dependencies can be components wired in a previous call.
    *
    * @param orderedComponents: A list with the components in the correct order.
    * @return The wired components.
@@ -51,26 +122,176 @@ public class WiringManager {
       inject(component);
     }
 
-    return new ArrayList<>(components.values());
+    List<Object> wired = new ArrayList<>(components.size());
+    for (Object value : components.values()) {
+      wired.addAll(managedInstances(value));
+    }
+
+    return wired;
   }
 
   /**
-   * This will initialize the component and assert that only one exists with the given name.
+   * Retrieve the instance already wired for the given component. For {@link Scope#STRIPED} components, this is the
+   * instance selected for the current thread. For {@link Scope#PROTOTYPE} components, this is a new instance. For
+   * {@link Scope#POOLED} components, this is an instance borrowed from the pool.
+   *
+   * @param component: The component class, with the {@link Managed} annotation.
+   * @return An {@link Optional} with the instance, or empty if the component was not wired.
+   */
+  public Optional<Object> component(Class<?> component) {
+    Object value = components.get(componentName(component));
+    if (value instanceof Striped) {
+      return Optional.of(((Striped<?>) value).get());
+    }
+
+    if (value instanceof Prototype) {
+      return Optional.of(create(component, componentName(component)));
+    }
+
+    if (value instanceof Pool) {
+      return Optional.of(((Pool<?>) value).borrow());
+    }
+
+    return Optional.ofNullable(value);
+  }
+
+  /**
+   * The instances of the component the container manages the lifecycle. This is empty for {@link Scope#PROTOTYPE}
+   * and {@link Scope#POOLED} components.
+   *
+   * @param component: The component class, with the {@link Managed} annotation.
+   * @return The component instances, or empty if the component was not wired.
+   */
+  public List<Object> instances(Class<?> component) {
+    Object value = components.get(componentName(component));
+    return value == null
+        ? List.of()
+        : managedInstances(value);
+  }
+
+  /**
+   * The pool of the component, if it has the {@link Scope#POOLED} scope.
+   *
+   * @param component: The component class, with the {@link Managed} annotation.
+   * @return An {@link Optional} with the pool, or empty otherwise.
+   */
+  public Optional<Pool<?>> pool(Class<?> component) {
+    Object value = components.get(componentName(component));
+    return value instanceof Pool
+        ? Optional.of((Pool<?>) value)
+        : Optional.empty();
+  }
+
+  /**
+   * Forget the wired component, so it can be wired again. The caller must guarantee that no other wired component
+   * depends on it.
+   *
+   * @param component: The component class, with the {@link Managed} annotation.
+   */
+  public void remove(Class<?> component) {
+    components.remove(componentName(component));
+    concrete.remove(component);
+  }
+
+  /**
+   * The pools of all components with the {@link Scope#POOLED} scope.
+   *
+   * @return A list with the pools.
+   */
+  public List<Pool<?>> pools() {
+    List<Pool<?>> pools = new ArrayList<>();
+    for (Object value : components.values()) {
+      if (value instanceof Pool) {
+        pools.add((Pool<?>) value);
+      }
+    }
+
+    return pools;
+  }
+
+  /**
+   * This will initialize the component and assert that only one exists with the given name. Components with the
+   * {@link Scope#STRIPED} scope are kept as a {@link Striped} with all instances. Components with the
+   * {@link Scope#PROTOTYPE} and {@link Scope#POOLED} scopes are only created when injected or borrowed.
    *
    * @param component: A single component to initialize.
    */
   private void initialize(Class<?> component) {
+    String name = componentName(component);
+    Managed annotation = component.getAnnotation(Managed.class);
+
+    Object value;
+    switch (annotation.scope()) {
+      case STRIPED:
+        int size = instances(name, annotation);
+        List<Object> stripes = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+          stripes.add(instantiate(component, name));
+        }
+        value = new Striped<>(stripes);
+        break;
+
+      case PROTOTYPE:
+        value = new Prototype(component);
+        break;
+
+      case POOLED:
+        value = new Pool<>(name, instances(name, annotation), () -> create(component, name));
+        break;
+
+      default:
+        value = instantiate(component, name);
+        break;
+    }
+
+    if (components.put(name, value) != null) {
+      throw new RuntimeException("Component for '" + name + "' already exists!");
+    }
+  }
+
+  private Object instantiate(Class<?> component, String name) {
+    Class<?> instantiable = interceptor == null
+        ? component
+        : concrete.computeIfAbsent(component, c -> Interception.subclass(c, name, interceptor));
+    Constructor<?> constructor = constructor(instantiable);
+    constructor.trySetAccessible();
+
     Object instance;
+    long mark = allocations.mark();
     try {
-      instance = constructor(component).newInstance();
+      instance = constructor.newInstance();
     } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
       throw new RuntimeException(e);
     }
+    allocations.record(name, AllocationTracker.Phase.CONSTRUCTION, mark);
+    return instance;
+  }
 
-    String name = componentName(component);
-    if (components.put(name, instance) != null) {
-      throw new RuntimeException("Component for '" + name + "' already exists!");
+  /**
+   * Creates a new instance and injects its dependencies. Used for the components created after wiring.
+   *
+   * @param component: The component class.
+   * @param name: The component name.
+   * @return A new instance ready to use.
+   */
+  private Object create(Class<?> component, String name) {
+    Object instance = instantiate(component, name);
+
+    long mark = allocations.mark();
+    inject(component, instance);
+    allocations.record(name, AllocationTracker.Phase.INJECTION, mark);
+    return instance;
+  }
+
+  private int instances(String name, Managed annotation) {
+    int instances = annotation.instances();
+    if (instances < 0) {
+      throw new RuntimeException("Component '" + name + "' with negative number of instances!");
     }
+
+    return instances == 0
+        ? Runtime.getRuntime().availableProcessors()
+        : instances;
   }
 
   private Constructor<?> constructor(Class<?> component) {
@@ -82,18 +303,22 @@ public class WiringManager {
   }
 
   private void inject(Class<?> component) {
-    Object owner = components.get(componentName(component));
+    String name = componentName(component);
+    long mark = allocations.mark();
 
+    for (Object owner : managedInstances(components.get(name))) {
+      inject(component, owner);
+    }
+    allocations.record(name, AllocationTracker.Phase.INJECTION, mark);
+  }
+
+  private void inject(Class<?> component, Object owner) {
     for (Field field : component.getDeclaredFields()) {
       if (Reflections.containsAnnotation(field, Inject.class)) {
-        Class<?> dependencyClass = field.getType();
-        Object dependency = components.get(componentName(dependencyClass));
-        assert dependency != null : "Dependency " + dependencyClass + " not found!";
-
         field.trySetAccessible();
 
         try {
-          field.set(owner, dependency);
+          field.set(owner, injectable(field));
         } catch (IllegalAccessException e) {
           throw new RuntimeException(e);
         }
@@ -101,6 +326,89 @@ public class WiringManager {
     }
   }
 
+  private Object injectable(Field field) {
+    if (provided.containsKey(field.getType())) {
+      return provided.get(field.getType()).apply(field);
+    }
+
+    Class<?> dependencyClass = dependencyType(field);
+    Object dependency = components.get(componentName(dependencyClass));
+    assert dependency != null : "Dependency " + dependencyClass + " not found!";
+
+    if (field.getType() == Pool.class) {
+      if (dependency instanceof Pool) {
+        return dependency;
+      }
+
+      throw new RuntimeException("Field " + field + " declared as Pool, but the component is not pooled!");
+    }
+
+    if (dependency instanceof Pool) {
+      throw new RuntimeException("Field " + field + " must be declared as Pool, the component is pooled!");
+    }
+
+    if (dependency instanceof Prototype) {
+      if (field.getType() == Striped.class) {
+        throw new RuntimeException("Field " + field + " can not be declared as Striped, the component is prototype!");
+      }
+
+      Class<?> component = ((Prototype) dependency).component;
+      return create(component, componentName(component));
+    }
+
+    if (field.getType() == Striped.class) {
+      return dependency instanceof Striped
+          ? dependency
+          : new Striped<>(List.of(dependency));
+    }
+
+    if (dependency instanceof Striped) {
+      throw new RuntimeException("Field " + field + " must be declared as Striped, the component is striped!");
+    }
+
+    return dependency;
+  }
+
+  /**
+   * The instances the container manages the lifecycle. Prototype and pooled instances are created later and are not
+   * part of the lifecycle.
+   *
+   * @param value: The value kept for the component.
+   * @return The component instances.
+   */
+  private static List<Object> managedInstances(Object value) {
+    if (value instanceof Striped) {
+      return ((Striped<?>) value).instances();
+    }
+
+    return value instanceof Prototype || value instanceof Pool
+        ? List.of()
+        : List.of(value);
+  }
+
+  /**
+   * Retrieve the component class the field depends on. This is the field type, or the type argument for fields
+   * declared as {@link Striped} or {@link Pool}.
+   *
+   * @param field: A field with the {@link Inject} annotation.
+   * @return The component class.
+   */
+  static Class<?> dependencyType(Field field) {
+    if (field.getType() != Striped.class && field.getType() != Pool.class) {
+      return field.getType();
+    }
+
+    Type type = field.getGenericType();
+    if (type instanceof ParameterizedType) {
+      Type argument = ((ParameterizedType) type).getActualTypeArguments()[0];
+      if (argument instanceof Class) {
+        return (Class<?>) argument;
+      }
+    }
+
+    throw new RuntimeException("Field " + field + " must declare the component type!");
+  }
+
   /**
    * Retrieve the component name. All components must be unique within a namespace, we first verify the name in the
    * {@link Managed} annotation, and fallback to the class name.
@@ -108,7 +416,7 @@ public class WiringManager {
    * @param component: The component to retrieve the name.
    * @return The component name.
    */
-  private String componentName(Class<?> component) {
+  static String componentName(Class<?> component) {
     Managed annotation = component.getAnnotation(Managed.class);
     assert annotation != null : "Component " + component.getName() + " does not have annotation!";
 
@@ -117,4 +425,15 @@ public class WiringManager {
         ? component.getName()
         : name;
   }
+
+  /**
+   * Marks a component with the {@link Scope#PROTOTYPE} scope, instances are created on demand.
+   */
+  private static final class Prototype {
+    private final Class<?> component;
+
+    private Prototype(Class<?> component) {
+      this.component = component;
+    }
+  }
 }
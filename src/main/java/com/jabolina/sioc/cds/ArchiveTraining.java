@@ -0,0 +1,158 @@
+/*
+ * Copyright 2022-present jabolina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jabolina.sioc.cds;
+
+import com.jabolina.sioc.LifecycleManagement;
+import net.jcip.annotations.Immutable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Creates an <a href="https://docs.oracle.com/en/java/javase/11/vm/class-data-sharing.html">AppCDS</a> archive with
+ * the classes a namespace loads, so the JVM maps them from the archive instead of loading and verifying again in every
+ * start.
+ *
+ * The training uses only the standard JDK flags, executing two new JVMs with the given class path:
+ *
+ * 1. The training run, {@code java -XX:DumpLoadedClassList=sioc.classlist -cp <class path> ArchiveTraining <package>},
+ * which executes {@link LifecycleManagement#train()} and the JVM records every class loaded, from the JDK, the
+ * framework and the components;
+ * 2. The dump, {@code java -Xshare:dump -XX:SharedClassListFile=sioc.classlist -XX:SharedArchiveFile=sioc.jsa -cp
+ * <class path>}, which creates the archive.
+ *
+ * The application then starts with {@code -XX:SharedArchiveFile=sioc.jsa} and the same class path. Note that AppCDS
+ * only archives classes from jar files, and the JVM refuses to dump when a directory in the class path is not empty.
+ * The output of both steps is written to the {@code training.log} file in the output directory.
+ */
+public final class ArchiveTraining {
+  public static final String CLASS_LIST = "sioc.classlist";
+  public static final String ARCHIVE = "sioc.jsa";
+  public static final String LOG = "training.log";
+
+  private ArchiveTraining() { }
+
+  /**
+   * The training run, executed by the JVM recording the loaded classes.
+   *
+   * @param args: The package to manage.
+   */
+  public static void main(String[] args) {
+    if (args.length != 1) {
+      System.err.println("Usage: " + ArchiveTraining.class.getName() + " <package>");
+      System.exit(1);
+    }
+
+    new LifecycleManagement(args[0]).train();
+  }
+
+  /**
+   * Train the archive for the package, using the class path of the current JVM.
+   *
+   * @param packageName: The package to manage.
+   * @param directory: The directory to write the class list and archive.
+   * @return The created {@link Archive}.
+   */
+  public static Archive train(String packageName, Path directory) {
+    return train(packageName, System.getProperty("java.class.path"), directory);
+  }
+
+  /**
+   * Train the archive for the package.
+   *
+   * @param packageName: The package to manage.
+   * @param classPath: The class path the application uses, composed only by jar files.
+   * @param directory: The directory to write the class list and archive.
+   * @return The created {@link Archive}.
+   */
+  public static Archive train(String packageName, String classPath, Path directory) {
+    Path classList = directory.resolve(CLASS_LIST);
+    Path archive = directory.resolve(ARCHIVE);
+    Path log = directory.resolve(LOG);
+
+    try {
+      Files.createDirectories(directory);
+      Files.deleteIfExists(log);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+
+    run(log, "-XX:DumpLoadedClassList=" + classList, "-cp", classPath, ArchiveTraining.class.getName(), packageName);
+    run(log, "-Xshare:dump", "-XX:SharedClassListFile=" + classList, "-XX:SharedArchiveFile=" + archive,
+        "-cp", classPath);
+    return new Archive(classList, archive);
+  }
+
+  private static void run(Path log, String... arguments) {
+    List<String> command = new ArrayList<>();
+    command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+    command.addAll(Arrays.asList(arguments));
+
+    ProcessBuilder builder = new ProcessBuilder(command)
+        .redirectErrorStream(true)
+        .redirectOutput(ProcessBuilder.Redirect.appendTo(log.toFile()));
+
+    int exit;
+    try {
+      exit = builder.start().waitFor();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while training", e);
+    }
+
+    if (exit != 0) {
+      throw new RuntimeException("Failed executing " + command + " with exit code " + exit + ", see " + log);
+    }
+  }
+
+  /**
+   * The files created by the training.
+   */
+  @Immutable
+  public static final class Archive {
+    private final Path classList;
+    private final Path archive;
+
+    private Archive(Path classList, Path archive) {
+      this.classList = classList;
+      this.archive = archive;
+    }
+
+    public Path classList() {
+      return classList;
+    }
+
+    public Path archive() {
+      return archive;
+    }
+
+    /**
+     * The JVM option to start the application using the archive.
+     *
+     * @return The JVM option.
+     */
+    public String jvmOption() {
+      return "-XX:SharedArchiveFile=" + archive;
+    }
+  }
+}
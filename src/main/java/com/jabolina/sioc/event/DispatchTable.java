@@ -0,0 +1,122 @@
+/*
+ * Copyright 2022-present jabolina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jabolina.sioc.event;
+
+import com.jabolina.sioc.Subscribe;
+import com.jabolina.sioc.util.Reflections;
+import net.jcip.annotations.Immutable;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Maps each event type to the subscribers that receive it.
+ *
+ * We resolve the {@link Subscribe} methods only once, when the table is created, and keep a {@link MethodHandle}
+ * bound to the component instance, so the dispatch is a direct call without reflection. The handlers for a concrete
+ * event class, including the subscribers of its super types, are computed in the first event of that class and cached.
+ */
+@Immutable
+final class DispatchTable {
+  private static final MethodHandle[] NONE = new MethodHandle[0];
+  private static final MethodType HANDLER = MethodType.methodType(void.class, Object.class);
+
+  static final DispatchTable EMPTY = new DispatchTable(new LinkedHashMap<>());
+
+  // The subscriber parameter type, and all the handlers for it, in the components order.
+  private final Map<Class<?>, List<MethodHandle>> subscribers;
+  // Owned by the table, so the handlers and the components they are bound to are collected with it.
+  private final ConcurrentMap<Class<?>, MethodHandle[]> handlers = new ConcurrentHashMap<>();
+
+  private DispatchTable(Map<Class<?>, List<MethodHandle>> subscribers) {
+    this.subscribers = subscribers;
+  }
+
+  /**
+   * Creates the table with all {@link Subscribe} methods of the components.
+   *
+   * @param components: The component instances, in the order to receive the events.
+   * @return A new {@link DispatchTable}.
+   */
+  static DispatchTable create(Collection<Object> components) {
+    Map<Class<?>, List<MethodHandle>> subscribers = new LinkedHashMap<>();
+    for (Object component : components) {
+      for (Method method : Reflections.findMethodsWith(component, Subscribe.class)) {
+        if (method.getParameterCount() != 1) {
+          throw new RuntimeException("Method " + method + " with @Subscribe must have a single parameter!");
+        }
+
+        Class<?> type = MethodType.methodType(method.getParameterTypes()[0]).wrap().returnType();
+        subscribers.computeIfAbsent(type, ignore -> new ArrayList<>()).add(handle(component, method));
+      }
+    }
+
+    return new DispatchTable(subscribers);
+  }
+
+  private static MethodHandle handle(Object component, Method method) {
+    method.trySetAccessible();
+    try {
+      return MethodHandles.lookup()
+          .unreflect(method)
+          .bindTo(component)
+          .asType(HANDLER);
+    } catch (IllegalAccessException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * The handlers for the event class.
+   *
+   * @param type: The event class.
+   * @return The handlers, or an empty array if there are no subscribers.
+   */
+  MethodHandle[] handlers(Class<?> type) {
+    MethodHandle[] cached = handlers.get(type);
+    if (cached != null) {
+      return cached;
+    }
+
+    List<MethodHandle> matching = new ArrayList<>();
+    for (Map.Entry<Class<?>, List<MethodHandle>> entry : subscribers.entrySet()) {
+      if (entry.getKey().isAssignableFrom(type)) {
+        matching.addAll(entry.getValue());
+      }
+    }
+
+    MethodHandle[] computed = matching.isEmpty()
+        ? NONE
+        : matching.toArray(NONE);
+    MethodHandle[] previous = handlers.putIfAbsent(type, computed);
+    return previous == null
+        ? computed
+        : previous;
+  }
+
+  boolean isEmpty() {
+    return subscribers.isEmpty();
+  }
+}
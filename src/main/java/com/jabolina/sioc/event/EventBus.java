@@ -0,0 +1,297 @@
+/*
+ * Copyright 2022-present jabolina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jabolina.sioc.event;
+
+import com.jabolina.sioc.Subscribe;
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+
+import java.lang.invoke.MethodHandle;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Delivers events from any thread to the {@link Subscribe} methods of the managed components.
+ *
+ * Events are added to a bounded {@link RingBuffer}, and a single bus thread consumes them in batches, calling the
+ * subscribers through the precomputed {@link DispatchTable}. Each subscriber receives the events in the order they
+ * were published. When the buffer is full, {@link #publish(Object)} waits for space, and {@link #tryPublish(Object)}
+ * returns immediately. A subscriber publishing runs in the bus thread, the only one freeing space, so publishing to a
+ * full buffer from a subscriber fails instead of waiting forever. Events without subscribers are discarded before
+ * reaching the buffer.
+ *
+ * The container injects the bus in fields with the {@link com.jabolina.sioc.Inject} annotation. The bus starts before
+ * all components and stops after all of them, delivering every event published before the stop. The bus thread only
+ * runs while there are subscribers, since some wait strategies keep a core busy.
+ */
+@ThreadSafe
+public final class EventBus {
+
+  private final String name;
+  private final RingBuffer<Object> buffer;
+  private final int batchSize;
+  private final WaitStrategy.Waiter waiter;
+  private final BooleanSupplier available;
+
+  private volatile DispatchTable table = DispatchTable.EMPTY;
+  private volatile boolean running = false;
+
+  @GuardedBy("this")
+  private boolean started = false;
+
+  // Only changed holding the lock, and read without it to detect the bus thread.
+  private volatile Thread thread;
+
+  /**
+   * Creates a new bus.
+   *
+   * @param name: The bus name, used to name the thread.
+   * @param capacity: The buffer capacity, rounded up to a power of two.
+   * @param batchSize: The maximum number of events the bus thread consumes before checking for more.
+   * @param strategy: How the bus thread waits for events.
+   */
+  public EventBus(String name, int capacity, int batchSize, WaitStrategy strategy) {
+    if (capacity <= 0 || batchSize <= 0) {
+      throw new IllegalArgumentException("Event bus capacity and batch size must be positive!");
+    }
+
+    this.name = name;
+    this.buffer = new RingBuffer<>(capacity);
+    this.batchSize = batchSize;
+    this.waiter = strategy.create();
+    this.available = () -> !running || !buffer.isEmpty();
+  }
+
+  /**
+   * Publish the event, waiting for space if the buffer is full.
+   *
+   * @param event: The event to publish.
+   * @throws IllegalStateException if the buffer is full and the bus is not running, or the caller is a subscriber.
+   */
+  public void publish(Object event) {
+    Objects.requireNonNull(event, "Event can not be null!");
+    if (!hasSubscribers(event)) {
+      return;
+    }
+
+    while (!buffer.offer(event)) {
+      if (!running) {
+        throw new IllegalStateException("Event bus " + name + " is full and not running!");
+      }
+
+      if (Thread.currentThread() == thread) {
+        throw new IllegalStateException("Event bus " + name + " is full, subscribers must use tryPublish!");
+      }
+      Thread.yield();
+    }
+    waiter.signal();
+  }
+
+  /**
+   * Publish the event, only if there is space in the buffer.
+   *
+   * @param event: The event to publish.
+   * @return false if the buffer is full, true otherwise.
+   */
+  public boolean tryPublish(Object event) {
+    Objects.requireNonNull(event, "Event can not be null!");
+    if (!hasSubscribers(event)) {
+      return true;
+    }
+
+    if (buffer.offer(event)) {
+      waiter.signal();
+      return true;
+    }
+
+    return false;
+  }
+
+  /**
+   * Replace the subscribers with the {@link Subscribe} methods of the given components. Events already in the
+   * buffer are delivered to the previous subscribers, and this waits until they are, so a component leaving receives
+   * every event published before. If the bus is started, the bus thread starts with the first subscriber and stops
+   * after the last one.
+   *
+   * @param components: The component instances, in the order to receive the events.
+   */
+  public synchronized void register(Collection<Object> components) {
+    replace(DispatchTable.create(components));
+    if (!started) {
+      return;
+    }
+
+    if (table.isEmpty()) {
+      halt();
+    } else {
+      spawn();
+    }
+  }
+
+  /**
+   * Start the bus, the thread only starts if there are subscribers. This is called by the container.
+   */
+  public synchronized void start() {
+    started = true;
+    if (!table.isEmpty()) {
+      spawn();
+    }
+  }
+
+  /**
+   * Stop the bus thread, after delivering all events in the buffer. This is called by the container.
+   */
+  public synchronized void stop() {
+    started = false;
+    halt();
+  }
+
+  /**
+   * Whether the bus thread is running.
+   *
+   * @return true if the thread is running, false otherwise.
+   */
+  synchronized boolean isConsuming() {
+    return thread != null;
+  }
+
+  // The bus thread replaces the table when it reaches the swap, after the events published before it.
+  @GuardedBy("this")
+  private void replace(DispatchTable next) {
+    Thread consumer = thread;
+    if (consumer == null || consumer == Thread.currentThread()) {
+      table = next;
+      return;
+    }
+
+    Swap swap = new Swap(next);
+    while (!buffer.offer(swap)) {
+      Thread.yield();
+    }
+    waiter.signal();
+
+    boolean interrupted = false;
+    while (swap.pending.getCount() > 0 && consumer.isAlive()) {
+      try {
+        swap.pending.await(10, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    table = next;
+
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @GuardedBy("this")
+  private void spawn() {
+    if (thread != null) {
+      return;
+    }
+
+    running = true;
+    thread = new Thread(this::consume, "sioc-event-bus-" + name);
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  @GuardedBy("this")
+  private void halt() {
+    if (thread == null) {
+      return;
+    }
+
+    running = false;
+    waiter.signal();
+
+    boolean interrupted = false;
+    while (thread.isAlive()) {
+      try {
+        thread.join();
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    thread = null;
+
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private boolean hasSubscribers(Object event) {
+    return table.handlers(event.getClass()).length > 0;
+  }
+
+  private void consume() {
+    int attempt = 0;
+    while (true) {
+      // Read before draining, events published before the stop are in the buffer once we see it.
+      boolean stopping = !running;
+      if (buffer.drain(this::dispatch, batchSize) > 0) {
+        attempt = 0;
+        continue;
+      }
+
+      if (stopping) {
+        return;
+      }
+
+      try {
+        waiter.idle(available, attempt);
+      } catch (InterruptedException e) {
+        return;
+      }
+
+      if (attempt < Integer.MAX_VALUE) {
+        attempt++;
+      }
+    }
+  }
+
+  private void dispatch(Object event) {
+    if (event instanceof Swap) {
+      Swap swap = (Swap) event;
+      table = swap.table;
+      swap.pending.countDown();
+      return;
+    }
+
+    for (MethodHandle handler : table.handlers(event.getClass())) {
+      try {
+        handler.invokeExact(event);
+      } catch (Throwable t) {
+        // A failing subscriber must not stop the delivery to the others.
+        Thread current = Thread.currentThread();
+        current.getUncaughtExceptionHandler().uncaughtException(current, t);
+      }
+    }
+  }
+
+  private static final class Swap {
+    private final DispatchTable table;
+    private final CountDownLatch pending = new CountDownLatch(1);
+
+    private Swap(DispatchTable table) {
+      this.table = table;
+    }
+  }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2022-present jabolina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jabolina.sioc.event;
+
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * A bounded ring buffer with many producers and a single consumer.
+ *
+ * This follows the <a href="https://www.1024cores.net/home/lock-free-algorithms/queues/bounded-mpmc-queue">bounded
+ * queue by Dmitry Vyukov</a>. Each slot has a sequence number, which tells whether the slot is free for the producer
+ * at a given position or ready for the consumer. Producers claim a position with a CAS, and the consumer does not
+ * need any atomic operation besides reading and writing the sequences.
+ *
+ * Only a single thread can call {@link #drain(Consumer, int)} and {@link #isEmpty()}.
+ *
+ * @param <E>: Type of the elements.
+ */
+@ThreadSafe
+final class RingBuffer<E> {
+
+  private final Object[] elements;
+  private final AtomicLongArray sequences;
+  private final int mask;
+  private final AtomicLong tail = new AtomicLong();
+
+  // Only accessed by the consumer.
+  private long head = 0;
+
+  RingBuffer(int capacity) {
+    int size = 1;
+    while (size < capacity) {
+      size <<= 1;
+    }
+
+    this.elements = new Object[size];
+    this.sequences = new AtomicLongArray(size);
+    this.mask = size - 1;
+    for (int i = 0; i < size; i++) {
+      sequences.set(i, i);
+    }
+  }
+
+  /**
+   * Add the element, if there is space.
+   *
+   * @param element: The element to add.
+   * @return true if added, false if the buffer is full.
+   */
+  boolean offer(E element) {
+    long position = tail.get();
+    while (true) {
+      int index = (int) (position & mask);
+      long difference = sequences.get(index) - position;
+
+      if (difference == 0) {
+        if (tail.compareAndSet(position, position + 1)) {
+          elements[index] = element;
+          sequences.set(index, position + 1);
+          return true;
+        }
+        position = tail.get();
+      } else if (difference < 0) {
+        return false;
+      } else {
+        position = tail.get();
+      }
+    }
+  }
+
+  /**
+   * Consume up to limit elements, in the order they were added.
+   *
+   * @param consumer: Receives each element.
+   * @param limit: The maximum number of elements to consume.
+   * @return The number of elements consumed.
+   */
+  @SuppressWarnings("unchecked")
+  int drain(Consumer<E> consumer, int limit) {
+    int consumed = 0;
+    while (consumed < limit) {
+      int index = (int) (head & mask);
+      if (sequences.get(index) != head + 1) {
+        break;
+      }
+
+      E element = (E) elements[index];
+      elements[index] = null;
+      sequences.set(index, head + elements.length);
+      head++;
+      consumed++;
+      consumer.accept(element);
+    }
+
+    return consumed;
+  }
+
+  boolean isEmpty() {
+    return sequences.get((int) (head & mask)) != head + 1;
+  }
+
+  int capacity() {
+    return elements.length;
+  }
+}
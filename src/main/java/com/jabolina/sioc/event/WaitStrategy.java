@@ -0,0 +1,148 @@
+/*
+ * Copyright 2022-present jabolina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jabolina.sioc.event;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * How the {@link EventBus} thread waits when there are no events, trading latency for CPU usage.
+ */
+public enum WaitStrategy {
+
+  /**
+   * Parks the thread until a producer signals. Uses the least CPU, but producers pay for the signal when the bus
+   * thread is waiting. This is the default.
+   */
+  BLOCKING {
+    @Override
+    Waiter create() {
+      return new Blocking();
+    }
+  },
+
+  /**
+   * Spins, then yields, then sleeps for short periods. Producers never signal.
+   */
+  SLEEPING {
+    @Override
+    Waiter create() {
+      return (available, attempt) -> {
+        if (attempt < SPIN_TRIES) {
+          Thread.onSpinWait();
+        } else if (attempt < SPIN_TRIES * 2) {
+          Thread.yield();
+        } else {
+          LockSupport.parkNanos(SLEEP_NANOS);
+        }
+      };
+    }
+  },
+
+  /**
+   * Spins, then yields the processor. Low latency, but keeps a processor busy.
+   */
+  YIELDING {
+    @Override
+    Waiter create() {
+      return (available, attempt) -> {
+        if (attempt < SPIN_TRIES) {
+          Thread.onSpinWait();
+        } else {
+          Thread.yield();
+        }
+      };
+    }
+  },
+
+  /**
+   * Only spins. The lowest latency, and a processor always busy.
+   */
+  BUSY_SPIN {
+    @Override
+    Waiter create() {
+      return (available, attempt) -> Thread.onSpinWait();
+    }
+  };
+
+  private static final int SPIN_TRIES = 100;
+  private static final long SLEEP_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+  /**
+   * Each bus needs its own instance, since waiting can have state.
+   *
+   * @return A new {@link Waiter}.
+   */
+  abstract Waiter create();
+
+  /**
+   * The waiting implementation used by a single bus.
+   */
+  interface Waiter {
+
+    /**
+     * Called by the bus thread when there are no events.
+     *
+     * @param available: Verifies whether there is something to do.
+     * @param attempt: How many times in a row the thread found no events.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    void idle(BooleanSupplier available, int attempt) throws InterruptedException;
+
+    /**
+     * Called after publishing an event, or when the bus is stopping.
+     */
+    default void signal() { }
+  }
+
+  private static final class Blocking implements Waiter {
+    private final Lock lock = new ReentrantLock();
+    private final Condition condition = lock.newCondition();
+
+    // Producers only acquire the lock when the bus thread is waiting.
+    private volatile boolean waiting = false;
+
+    @Override
+    public void idle(BooleanSupplier available, int attempt) throws InterruptedException {
+      lock.lock();
+      try {
+        waiting = true;
+        while (!available.getAsBoolean()) {
+          condition.await();
+        }
+      } finally {
+        waiting = false;
+        lock.unlock();
+      }
+    }
+
+    @Override
+    public void signal() {
+      if (waiting) {
+        lock.lock();
+        try {
+          condition.signalAll();
+        } finally {
+          lock.unlock();
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2022-present jabolina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jabolina.sioc.executor;
+
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The executor injected in a component field, limiting how many of its tasks run at the same time.
+ *
+ * Tasks over the limit wait in a queue of this executor, without holding a thread, and the next one is dispatched
+ * when a running task completes. The shutdown only affects this executor, the {@link ManagedExecutor} keeps running
+ * the tasks of other components. The {@link #shutdownNow()} discards the waiting tasks and interrupts the running
+ * ones.
+ */
+@ThreadSafe
+final class ComponentExecutor extends AbstractExecutorService {
+  private final String component;
+  private final ManagedExecutor executor;
+  private final int concurrency;
+
+  private final Queue<Runnable> waiting = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger running = new AtomicInteger();
+  // Accepted and not completed.
+  private final AtomicInteger pending = new AtomicInteger();
+  // Incremented when the tasks are abandoned, so tasks completing afterwards do not change the counters.
+  private final AtomicInteger generation = new AtomicInteger();
+
+  // The threads running the tasks, interrupted by the shutdownNow.
+  @GuardedBy("threads")
+  private final Set<Thread> threads = new HashSet<>();
+
+  private volatile boolean shutdown = false;
+  private volatile boolean interrupting = false;
+
+  /**
+   * @param component: The field receiving the executor, used in the error messages.
+   * @param executor: The executor running the tasks.
+   * @param concurrency: The maximum number of tasks running at the same time, or 0 without a limit.
+   */
+  ComponentExecutor(String component, ManagedExecutor executor, int concurrency) {
+    this.component = component;
+    this.executor = executor;
+    this.concurrency = concurrency;
+  }
+
+  @Override
+  public void execute(Runnable task) {
+    Objects.requireNonNull(task, "Task can not be null!");
+    if (shutdown) {
+      throw new RejectedExecutionException("Executor for " + component + " is shutdown!");
+    }
+
+    executor.accept();
+    pending.incrementAndGet();
+    if (concurrency == 0) {
+      dispatch(task);
+      return;
+    }
+
+    waiting.add(task);
+    drain();
+  }
+
+  private void drain() {
+    while (!waiting.isEmpty()) {
+      int current = running.get();
+      if (current >= concurrency) {
+        // A running task will dispatch the next one when it completes.
+        return;
+      }
+
+      if (running.compareAndSet(current, current + 1)) {
+        Runnable next = waiting.poll();
+        if (next == null) {
+          running.decrementAndGet();
+        } else {
+          dispatch(next);
+        }
+      }
+    }
+  }
+
+  private void dispatch(Runnable task) {
+    int current = generation.get();
+    try {
+      executor.dispatch(() -> {
+        Thread thread = Thread.currentThread();
+        synchronized (threads) {
+          threads.add(thread);
+          if (interrupting) {
+            thread.interrupt();
+          }
+        }
+
+        try {
+          task.run();
+        } finally {
+          synchronized (threads) {
+            threads.remove(thread);
+          }
+          completed(current);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      completed(current);
+      throw e;
+    }
+  }
+
+  private void completed(int current) {
+    if (current != generation.get()) {
+      return;
+    }
+
+    if (concurrency > 0) {
+      running.decrementAndGet();
+    }
+
+    if (pending.decrementAndGet() == 0 && shutdown) {
+      synchronized (this) {
+        notifyAll();
+      }
+    }
+
+    if (concurrency > 0) {
+      drain();
+    }
+  }
+
+  @Override
+  public void shutdown() {
+    shutdown = true;
+  }
+
+  @Override
+  public List<Runnable> shutdownNow() {
+    shutdown = true;
+    interrupting = true;
+    synchronized (threads) {
+      for (Thread thread : threads) {
+        thread.interrupt();
+      }
+    }
+
+    List<Runnable> removed = new ArrayList<>();
+    for (Runnable task = waiting.poll(); task != null; task = waiting.poll()) {
+      executor.discard();
+      removed.add(task);
+      if (pending.decrementAndGet() == 0) {
+        synchronized (this) {
+          notifyAll();
+        }
+      }
+    }
+
+    return removed;
+  }
+
+  /**
+   * Forget the waiting and running tasks, after the {@link ManagedExecutor} abandoned them.
+   */
+  synchronized void reset() {
+    generation.incrementAndGet();
+    waiting.clear();
+    running.set(0);
+    pending.set(0);
+    notifyAll();
+  }
+
+  @Override
+  public boolean isShutdown() {
+    return shutdown;
+  }
+
+  @Override
+  public boolean isTerminated() {
+    return shutdown && pending.get() == 0;
+  }
+
+  @Override
+  public synchronized boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    while (!isTerminated()) {
+      long remaining = deadline - System.nanoTime();
+      if (remaining <= 0) {
+        return false;
+      }
+
+      TimeUnit.NANOSECONDS.timedWait(this, remaining);
+    }
+
+    return true;
+  }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2022-present jabolina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jabolina.sioc.executor;
+
+import com.jabolina.sioc.Execution;
+import com.jabolina.sioc.metrics.ExecutorMetrics;
+import net.jcip.annotations.ThreadSafe;
+
+import java.lang.reflect.Field;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * The executors of a namespace, and the executor injected in each component field.
+ *
+ * The executors are declared in the {@link com.jabolina.sioc.Configuration}. The {@link Execution#DEFAULT} executor
+ * is always available, with one platform thread per available processor, unless configured otherwise. The container
+ * calls {@link #start()} before starting the components, and {@link #stop()} after stopping all of them, so the tasks
+ * submitted while starting or stopping a component are still executed.
+ */
+@ThreadSafe
+public final class ExecutorRegistry {
+
+  private final Map<String, ManagedExecutor> executors = new ConcurrentHashMap<>();
+  private final Map<Field, ComponentExecutor> injected = new ConcurrentHashMap<>();
+
+  /**
+   * @param settings: The configured executors.
+   * @param drainTimeout: How long the stop waits for the tasks of each executor.
+   */
+  public ExecutorRegistry(Collection<ExecutorSettings> settings, Duration drainTimeout) {
+    int processors = Runtime.getRuntime().availableProcessors();
+    ExecutorSettings defaults = ExecutorSettings.platform(Execution.DEFAULT, processors);
+    executors.put(Execution.DEFAULT, new ManagedExecutor(defaults, drainTimeout));
+    for (ExecutorSettings setting : settings) {
+      executors.put(setting.name(), new ManagedExecutor(setting, drainTimeout));
+    }
+  }
+
+  /**
+   * The executor for a field declared as {@link java.util.concurrent.Executor} or {@link ExecutorService}. All
+   * instances of the component share the same executor, and the same concurrency limit.
+   *
+   * @param field: The field, with an optional {@link Execution} annotation.
+   * @return The executor to inject.
+   */
+  public ExecutorService executor(Field field) {
+    Execution execution = field.getAnnotation(Execution.class);
+    String name = execution == null
+        ? Execution.DEFAULT
+        : execution.value();
+    int concurrency = execution == null
+        ? 0
+        : execution.concurrency();
+
+    ManagedExecutor executor = executors.get(name);
+    if (executor == null) {
+      throw new RuntimeException("Field " + field + " uses executor '" + name + "', which is not configured!");
+    }
+
+    if (concurrency < 0) {
+      throw new RuntimeException("Field " + field + " with negative concurrency!");
+    }
+
+    // A component can shutdown its executor when stopping, the next instance must receive a new one.
+    return injected.compute(field, (ignore, current) -> current == null || current.isShutdown()
+        ? new ComponentExecutor(field.toString(), executor, concurrency)
+        : current);
+  }
+
+  /**
+   * Forget the executors injected in the component fields, so a removed component does not retain its class. The
+   * tasks already submitted still execute.
+   *
+   * @param component: The component class, with the fields the executors were injected.
+   */
+  public void remove(Class<?> component) {
+    injected.keySet().removeIf(field -> field.getDeclaringClass() == component);
+  }
+
+  public void start() {
+    for (ManagedExecutor executor : executors.values()) {
+      executor.start();
+    }
+  }
+
+  /**
+   * Wait for all tasks to complete and stop the threads. An executor that does not drain in time interrupts its tasks,
+   * and the injected executors forget the tasks they were still waiting for.
+   */
+  public void stop() {
+    boolean drained = true;
+    for (ManagedExecutor executor : executors.values()) {
+      drained &= executor.stop();
+    }
+
+    if (!drained) {
+      for (ComponentExecutor executor : injected.values()) {
+        executor.reset();
+      }
+    }
+  }
+
+  /**
+   * The usage of each executor.
+   *
+   * @return A snapshot of each executor.
+   */
+  public List<ExecutorMetrics> metrics() {
+    List<ExecutorMetrics> metrics = new ArrayList<>(executors.size());
+    for (ManagedExecutor executor : executors.values()) {
+      metrics.add(executor.metrics());
+    }
+
+    metrics.sort(Comparator.comparing(ExecutorMetrics::executor));
+    return metrics;
+  }
+}
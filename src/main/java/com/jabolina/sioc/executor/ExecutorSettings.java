@@ -0,0 +1,75 @@
+/*
+ * Copyright 2022-present jabolina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jabolina.sioc.executor;
+
+import net.jcip.annotations.Immutable;
+
+/**
+ * Describes an executor the container creates.
+ */
+@Immutable
+public final class ExecutorSettings {
+  private final String name;
+  private final int threads;
+  private final boolean virtual;
+
+  private ExecutorSettings(String name, int threads, boolean virtual) {
+    this.name = name;
+    this.threads = threads;
+    this.virtual = virtual;
+  }
+
+  /**
+   * An executor with a fixed number of platform threads.
+   *
+   * @param name: The executor name.
+   * @param threads: The number of threads.
+   * @return The executor settings.
+   */
+  public static ExecutorSettings platform(String name, int threads) {
+    if (threads <= 0) {
+      throw new IllegalArgumentException("Executor '" + name + "' must have a positive number of threads!");
+    }
+
+    return new ExecutorSettings(name, threads, false);
+  }
+
+  /**
+   * An executor starting a virtual thread per task. Virtual threads are only available with Java 21 or newer, older
+   * versions use a platform thread per task, reusing the idle threads.
+   *
+   * @param name: The executor name.
+   * @return The executor settings.
+   */
+  public static ExecutorSettings virtual(String name) {
+    return new ExecutorSettings(name, 0, true);
+  }
+
+  public String name() {
+    return name;
+  }
+
+  /**
+   * @return The number of threads, or 0 for a thread per task.
+   */
+  public int threads() {
+    return threads;
+  }
+
+  public boolean virtual() {
+    return virtual;
+  }
+}
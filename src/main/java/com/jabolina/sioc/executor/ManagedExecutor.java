@@ -0,0 +1,234 @@
+/*
+ * Copyright 2022-present jabolina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jabolina.sioc.executor;
+
+import com.jabolina.sioc.metrics.ExecutorMetrics;
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A single executor owned by the container, running the tasks of all components using it.
+ *
+ * The threads only exist between {@link #start()} and {@link #stop()}. A task is accepted before reaching the
+ * underlying executor, since it can wait for the concurrency limit of a component, and the stop waits until every
+ * accepted task completes, including the tasks submitted by other tasks. Only then the underlying executor is shut
+ * down, and new tasks are rejected. A stop waits at most the drain timeout, after that the running tasks are
+ * interrupted and the queued tasks are discarded.
+ */
+@ThreadSafe
+final class ManagedExecutor {
+  private static final long QUIESCENCE_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+  private static final long INTERRUPTED_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  private final ExecutorSettings settings;
+  private final Duration drainTimeout;
+
+  // Accepted and not completed, either queued or active.
+  private final AtomicLong outstanding = new AtomicLong();
+  private final AtomicLong queued = new AtomicLong();
+  private final AtomicLong active = new AtomicLong();
+  private final LongAdder completed = new LongAdder();
+  // Incremented when a stop abandons the tasks, which must not change the counters after they are reset.
+  private volatile long epoch = 0;
+
+  @GuardedBy("this")
+  private ExecutorService delegate;
+  private volatile ExecutorService running;
+
+  /**
+   * @param settings: The executor settings.
+   * @param drainTimeout: How long the stop waits for the accepted tasks.
+   */
+  ManagedExecutor(ExecutorSettings settings, Duration drainTimeout) {
+    this.settings = settings;
+    this.drainTimeout = drainTimeout;
+  }
+
+  synchronized void start() {
+    if (delegate == null) {
+      delegate = create();
+      running = delegate;
+    }
+  }
+
+  /**
+   * Wait until all accepted tasks complete, and then stop the threads. Tasks can still submit other tasks while we
+   * wait. If the tasks do not complete within the drain timeout, or if interrupted, we interrupt the running tasks,
+   * discard the queued ones, and wait at most a second for the threads.
+   *
+   * @return true if all accepted tasks completed, false if they were abandoned.
+   */
+  synchronized boolean stop() {
+    if (delegate == null) {
+      return true;
+    }
+
+    long deadline = System.nanoTime() + drainTimeout.toNanos();
+    boolean interrupted = false;
+    while (outstanding.get() > 0 && !interrupted && deadline - System.nanoTime() > 0) {
+      LockSupport.parkNanos(this, QUIESCENCE_NANOS);
+      interrupted = Thread.interrupted();
+    }
+
+    running = null;
+    delegate.shutdown();
+    boolean drained = false;
+    try {
+      long remaining = Math.max(0, deadline - System.nanoTime());
+      drained = !interrupted && delegate.awaitTermination(remaining, TimeUnit.NANOSECONDS);
+    } catch (InterruptedException e) {
+      interrupted = true;
+    }
+
+    if (!drained) {
+      abandon(interrupted);
+    }
+
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+    delegate = null;
+    return drained;
+  }
+
+  // The interrupted tasks can still complete and reject the tasks waiting for them, so we reset after they finish.
+  @GuardedBy("this")
+  private void abandon(boolean interrupted) {
+    delegate.shutdownNow();
+    if (!interrupted) {
+      try {
+        delegate.awaitTermination(INTERRUPTED_NANOS, TimeUnit.NANOSECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    epoch++;
+    outstanding.set(0);
+    queued.set(0);
+    active.set(0);
+  }
+
+  /**
+   * Account a new task, which is queued until dispatched.
+   *
+   * @throws RejectedExecutionException if the executor is not running.
+   */
+  void accept() {
+    if (running == null) {
+      throw new RejectedExecutionException("Executor '" + settings.name() + "' is not running!");
+    }
+
+    outstanding.incrementAndGet();
+    queued.incrementAndGet();
+  }
+
+  /**
+   * Send an accepted task to the threads.
+   *
+   * @param task: The task to execute.
+   * @throws RejectedExecutionException if the executor stopped meanwhile, the task is no longer accounted.
+   */
+  void dispatch(Runnable task) {
+    ExecutorService executor = running;
+    try {
+      if (executor == null) {
+        throw new RejectedExecutionException("Executor '" + settings.name() + "' is not running!");
+      }
+
+      long current = epoch;
+      executor.execute(() -> {
+        if (current == epoch) {
+          queued.decrementAndGet();
+          active.incrementAndGet();
+        }
+        try {
+          task.run();
+        } finally {
+          completed.increment();
+          if (current == epoch) {
+            active.decrementAndGet();
+            outstanding.decrementAndGet();
+          }
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      discard();
+      throw e;
+    }
+  }
+
+  /**
+   * Forget an accepted task that will not be dispatched.
+   */
+  void discard() {
+    queued.decrementAndGet();
+    outstanding.decrementAndGet();
+  }
+
+  ExecutorMetrics metrics() {
+    return new ExecutorMetrics(settings.name(), settings.virtual(), settings.threads(), queued.get(), active.get(),
+        completed.sum());
+  }
+
+  private ExecutorService create() {
+    ThreadFactory threads = new NamedThreadFactory(settings.name());
+    if (!settings.virtual()) {
+      return new ThreadPoolExecutor(settings.threads(), settings.threads(), 0, TimeUnit.MILLISECONDS,
+          new LinkedBlockingQueue<>(), threads);
+    }
+
+    try {
+      Method virtual = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return (ExecutorService) virtual.invoke(null);
+    } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException ignore) {
+      // Java older than 21, or virtual threads are disabled.
+    }
+
+    return Executors.newCachedThreadPool(threads);
+  }
+
+  private static final class NamedThreadFactory implements ThreadFactory {
+    private final String prefix;
+    private final AtomicInteger count = new AtomicInteger();
+
+    private NamedThreadFactory(String name) {
+      this.prefix = "sioc-executor-" + name + "-";
+    }
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
@@ -56,7 +56,8 @@ public final class TopologicalSorting {
    * @return A list with the topological sort of the graph.
    */
   private static List<Class<?>> sort(Graph<Class<?>> graph) {
-    List<Class<?>> sorted = new ArrayList<>(graph.size());
+    int size = graph.size();
+    List<Class<?>> sorted = new ArrayList<>(size);
     Stack<Graph.Edge<Class<?>>> edges = new Stack<>();
 
     for (Graph.Edge<Class<?>> edge : graph) {
@@ -73,14 +74,22 @@ public final class TopologicalSorting {
       sorted.add(source.source());
 
       for (Graph.Edge<Class<?>> edge : graph) {
-        edge.remove(source.source());
-
-        if (edge.adjacency().isEmpty()) {
+        // Edges that were already empty are in the stack, we only push the ones that just become empty.
+        if (edge.remove(source.source()) && edge.adjacency().isEmpty()) {
           edges.add(edge);
         }
       }
     }
 
+    // Without assertions, a cycle or an edge to a class outside the graph would silently leave classes out.
+    if (sorted.size() != size) {
+      List<Class<?>> remaining = new ArrayList<>();
+      for (Graph.Edge<Class<?>> edge : graph) {
+        remaining.add(edge.source());
+      }
+      throw new RuntimeException("Lifecycle with unresolved dependencies between " + remaining + "!");
+    }
+
     return sorted;
   }
 }
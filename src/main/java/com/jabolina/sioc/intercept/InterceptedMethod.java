@@ -0,0 +1,66 @@
+/*
+ * Copyright 2022-present jabolina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jabolina.sioc.intercept;
+
+import net.jcip.annotations.Immutable;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * Describes a component method with interception.
+ */
+@Immutable
+public final class InterceptedMethod {
+  private final String component;
+  private final Method method;
+  private final String signature;
+
+  InterceptedMethod(String component, Method method) {
+    this.component = component;
+    this.method = method;
+    this.signature = component + "#" + method.getName() + Arrays.stream(method.getParameterTypes())
+        .map(Class::getSimpleName)
+        .collect(Collectors.joining(", ", "(", ")"));
+  }
+
+  /**
+   * @return The name of the component.
+   */
+  public String component() {
+    return component;
+  }
+
+  /**
+   * @return The original method, declared in the component class or in one of its super classes.
+   */
+  public Method method() {
+    return method;
+  }
+
+  /**
+   * @return The component name, the method name and its parameter types.
+   */
+  public String signature() {
+    return signature;
+  }
+
+  @Override
+  public String toString() {
+    return signature;
+  }
+}
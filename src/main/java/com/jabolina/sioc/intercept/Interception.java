@@ -0,0 +1,208 @@
+/*
+ * Copyright 2022-present jabolina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jabolina.sioc.intercept;
+
+import net.jcip.annotations.ThreadSafe;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates the subclasses with interception, and receives the calls from the generated methods.
+ *
+ * The subclass overrides every public method of the component and its super classes, except the final and static
+ * ones. Each generated method calls {@link #enter(Object)} and {@link #exit(Object, long, Throwable)} with the binding
+ * of the method to the {@link Interceptor} given when generating. The bindings are kept in a static field of the
+ * subclass, so they are collected with it and nothing global grows with each generated class. The subclass is defined
+ * in the same package and class loader of the component. With Java 15 or newer we define a hidden class, which can be
+ * unloaded with the component class loader and is not visible by name, otherwise we fallback to a regular class.
+ *
+ * Components that can not be extended are used as they are: final classes, and classes without a non-private
+ * constructor without arguments.
+ *
+ * This is used by the container, the generated code is the only caller of {@link #enter(Object)} and
+ * {@link #exit(Object, long, Throwable)}.
+ */
+@ThreadSafe
+public final class Interception {
+
+  private static final AtomicLong CLASSES = new AtomicLong();
+
+  private Interception() { }
+
+  /**
+   * Generates the subclass of the component with all public methods calling the interceptor.
+   *
+   * @param component: The component class, with the {@link com.jabolina.sioc.Managed} annotation.
+   * @param name: The component name.
+   * @param interceptor: The interceptor receiving the calls.
+   * @return The generated subclass, or the component class if it can not be extended.
+   */
+  public static Class<?> subclass(Class<?> component, String name, Interceptor interceptor) {
+    List<Method> methods = interceptable(component);
+    if (!isExtensible(component) || methods.isEmpty()) {
+      return component;
+    }
+
+    String subclass = component.getName() + "$$Intercepted$" + CLASSES.incrementAndGet();
+    byte[] bytes = new SubclassWriter(subclass, component).write(methods);
+    Class<?> defined = define(component, bytes);
+
+    // Set before any instance exists, the constructor is only called after we return.
+    Object[] bindings = new Object[methods.size()];
+    for (int i = 0; i < methods.size(); i++) {
+      bindings[i] = new Binding(new InterceptedMethod(name, methods.get(i)), interceptor);
+    }
+
+    try {
+      Field field = defined.getField(SubclassWriter.BINDINGS);
+      field.trySetAccessible();
+      field.set(null, bindings);
+    } catch (ReflectiveOperationException e) {
+      throw new RuntimeException("Failed generating interception for " + component.getName() + "!", e);
+    }
+
+    return defined;
+  }
+
+  /**
+   * Called by the generated methods before calling the original method.
+   *
+   * @param binding: The method binding, from the generated class.
+   * @return The token from the {@link Interceptor}.
+   */
+  public static long enter(Object binding) {
+    Binding bound = (Binding) binding;
+    return bound.interceptor.enter(bound.method);
+  }
+
+  /**
+   * Called by the generated methods after calling the original method.
+   *
+   * @param binding: The method binding, from the generated class.
+   * @param token: The value returned by {@link #enter(Object)}.
+   * @param failure: What the original method has thrown, or null.
+   */
+  public static void exit(Object binding, long token, Throwable failure) {
+    Binding bound = (Binding) binding;
+    bound.interceptor.exit(bound.method, token, failure);
+  }
+
+  /**
+   * The public methods that can be overridden, starting from the component class. A method overridden in a subclass
+   * is only verified once, in the most specific declaration.
+   */
+  private static List<Method> interceptable(Class<?> component) {
+    Set<String> seen = new HashSet<>();
+    List<Method> methods = new ArrayList<>();
+    for (Class<?> clazz = component; clazz != null && clazz != Object.class; clazz = clazz.getSuperclass()) {
+      for (Method method : clazz.getDeclaredMethods()) {
+        int modifiers = method.getModifiers();
+        if (Modifier.isStatic(modifiers) || Modifier.isPrivate(modifiers)) {
+          continue;
+        }
+
+        String signature = method.getName()
+            + MethodType.methodType(method.getReturnType(), method.getParameterTypes()).toMethodDescriptorString();
+        if (!seen.add(signature)) {
+          continue;
+        }
+
+        if (Modifier.isPublic(modifiers) && !Modifier.isFinal(modifiers) && !method.isBridge()
+            && !method.isSynthetic()) {
+          methods.add(method);
+        }
+      }
+    }
+
+    return methods;
+  }
+
+  private static boolean isExtensible(Class<?> component) {
+    int modifiers = component.getModifiers();
+    if (Modifier.isFinal(modifiers) || Modifier.isAbstract(modifiers) || component.isInterface()) {
+      return false;
+    }
+
+    for (Constructor<?> constructor : component.getDeclaredConstructors()) {
+      if (constructor.getParameterCount() == 0 && !Modifier.isPrivate(constructor.getModifiers())) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  private static Class<?> define(Class<?> component, byte[] bytes) {
+    try {
+      MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(component, MethodHandles.lookup());
+      int full = MethodHandles.Lookup.PRIVATE | MethodHandles.Lookup.MODULE;
+      if (HiddenClasses.DEFINE != null && (lookup.lookupModes() & full) == full) {
+        Object defined = HiddenClasses.DEFINE.invoke(lookup, bytes, true, HiddenClasses.OPTIONS);
+        return ((MethodHandles.Lookup) defined).lookupClass();
+      }
+
+      return lookup.defineClass(bytes);
+    } catch (IllegalAccessException | InvocationTargetException e) {
+      throw new RuntimeException("Failed generating interception for " + component.getName() + "!", e);
+    }
+  }
+
+  /**
+   * The method to define hidden classes, only available with Java 15 or newer.
+   */
+  private static final class HiddenClasses {
+    private static final Method DEFINE;
+    private static final Object OPTIONS;
+
+    static {
+      Method define = null;
+      Object options = null;
+      try {
+        Class<?> option = Class.forName("java.lang.invoke.MethodHandles$Lookup$ClassOption");
+        options = Array.newInstance(option, 0);
+        define = MethodHandles.Lookup.class
+            .getMethod("defineHiddenClass", byte[].class, boolean.class, options.getClass());
+      } catch (ReflectiveOperationException ignore) {
+        // Older Java version.
+      }
+
+      DEFINE = define;
+      OPTIONS = options;
+    }
+  }
+
+  private static final class Binding {
+    private final InterceptedMethod method;
+    private final Interceptor interceptor;
+
+    private Binding(InterceptedMethod method, Interceptor interceptor) {
+      this.method = method;
+      this.interceptor = interceptor;
+    }
+  }
+}
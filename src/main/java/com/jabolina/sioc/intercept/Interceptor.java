@@ -0,0 +1,46 @@
+/*
+ * Copyright 2022-present jabolina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jabolina.sioc.intercept;
+
+/**
+ * Observes the calls to the public methods of the managed components.
+ *
+ * When the {@link com.jabolina.sioc.Configuration} has an interceptor, the container instantiates a generated subclass
+ * of each component, overriding the public methods to call the interceptor before and after the original method. The
+ * interceptor is called in the thread executing the method, so it must be thread-safe and fast. Without an
+ * interceptor, the components are instantiated as they are, and there is no overhead at all.
+ *
+ * @see LatencyInterceptor
+ */
+public interface Interceptor {
+
+  /**
+   * Called before the method executes.
+   *
+   * @param method: The method called.
+   * @return A token given back to {@link #exit(InterceptedMethod, long, Throwable)}, e.g., the start time.
+   */
+  long enter(InterceptedMethod method);
+
+  /**
+   * Called after the method executes, either returning or throwing.
+   *
+   * @param method: The method called.
+   * @param token: The value returned by {@link #enter(InterceptedMethod)}.
+   * @param failure: What the method has thrown, or null if it returned.
+   */
+  void exit(InterceptedMethod method, long token, Throwable failure);
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2022-present jabolina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jabolina.sioc.intercept;
+
+import com.jabolina.sioc.metrics.MethodMetrics;
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An {@link Interceptor} recording the number of calls and the latency of each component method.
+ *
+ * The latency is kept in a histogram with power of two buckets, so recording is a single atomic increment and the
+ * memory is fixed per method. The bucket {@code i} counts the calls that took between 2^(i-1) and 2^i - 1
+ * nanoseconds. The methods are identified by their signature, so the metrics continue after a reload redefines the
+ * component, and the interceptor does not retain the component classes. The usage is:
+ *
+ * <pre>
+ *   LatencyInterceptor latency = new LatencyInterceptor();
+ *   LifecycleManagement management = new LifecycleManagement(pkg, Configuration.defaults().withInterceptor(latency));
+ *   // Use the components.
+ *   latency.metrics().forEach(System.out::println);
+ * </pre>
+ */
+@ThreadSafe
+public final class LatencyInterceptor implements Interceptor {
+
+  private final Map<String, Recorder> recorders = new ConcurrentHashMap<>();
+
+  @Override
+  public long enter(InterceptedMethod method) {
+    return System.nanoTime();
+  }
+
+  @Override
+  public void exit(InterceptedMethod method, long token, Throwable failure) {
+    long elapsed = System.nanoTime() - token;
+    Recorder recorder = recorders.get(method.signature());
+    if (recorder == null) {
+      recorder = recorders.computeIfAbsent(method.signature(), ignore -> new Recorder());
+    }
+
+    recorder.record(elapsed, failure != null);
+  }
+
+  /**
+   * A snapshot of all methods called at least once, sorted by the method signature.
+   *
+   * @return The metrics of each method.
+   */
+  public List<MethodMetrics> metrics() {
+    List<MethodMetrics> metrics = new ArrayList<>(recorders.size());
+    for (Map.Entry<String, Recorder> entry : recorders.entrySet()) {
+      metrics.add(entry.getValue().snapshot(entry.getKey()));
+    }
+
+    metrics.sort(Comparator.comparing(MethodMetrics::method));
+    return metrics;
+  }
+
+  private static final class Recorder {
+    private final AtomicLongArray buckets = new AtomicLongArray(MethodMetrics.BUCKETS);
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder nanos = new LongAdder();
+
+    void record(long elapsed, boolean failed) {
+      long value = Math.max(0, elapsed);
+      buckets.incrementAndGet(64 - Long.numberOfLeadingZeros(value));
+      nanos.add(value);
+      if (failed) {
+        failures.increment();
+      }
+    }
+
+    MethodMetrics snapshot(String method) {
+      long[] counts = new long[buckets.length()];
+      for (int i = 0; i < counts.length; i++) {
+        counts[i] = buckets.get(i);
+      }
+
+      return new MethodMetrics(method, counts, failures.sum(), nanos.sum());
+    }
+  }
+}
@@ -0,0 +1,404 @@
+/*
+ * Copyright 2022-present jabolina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jabolina.sioc.intercept;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the class file of a subclass that overrides the given methods, wrapping each call to the super method with
+ * {@link Interception#enter(Object)} and {@link Interception#exit(Object, long, Throwable)}. Each overridden method
+ * is:
+ *
+ * <pre>
+ *   public R method(A a, B b) {
+ *     long token = Interception.enter(BINDINGS[I]);
+ *     R result;
+ *     try {
+ *       result = super.method(a, b);
+ *     } catch (Throwable t) {
+ *       Interception.exit(BINDINGS[I], token, t);
+ *       throw t;
+ *     }
+ *     Interception.exit(BINDINGS[I], token, null);
+ *     return result;
+ *   }
+ * </pre>
+ *
+ * The {@link #BINDINGS} static field holds what each method calls, in the methods order, and is set right after the
+ * class is defined. We write the class file version 49, which does not need the stack map frames, so we only need a
+ * constant pool and the instructions. The subclass has a public constructor without arguments calling the super
+ * constructor.
+ */
+final class SubclassWriter {
+  static final String BINDINGS = "BINDINGS";
+
+  private static final int VERSION = 49;
+
+  private static final int ACC_PUBLIC = 0x0001;
+  private static final int ACC_STATIC = 0x0008;
+  private static final int ACC_FINAL = 0x0010;
+  private static final int ACC_SUPER = 0x0020;
+
+  private static final int ACONST_NULL = 0x01;
+  private static final int LDC_W = 0x13;
+  private static final int ALOAD_0 = 0x2a;
+  private static final int LLOAD = 0x16;
+  private static final int ALOAD = 0x19;
+  private static final int LSTORE = 0x37;
+  private static final int ASTORE = 0x3a;
+  private static final int AALOAD = 0x32;
+  private static final int ATHROW = 0xbf;
+  private static final int RETURN = 0xb1;
+  private static final int GETSTATIC = 0xb2;
+  private static final int INVOKESPECIAL = 0xb7;
+  private static final int INVOKESTATIC = 0xb8;
+  private static final int WIDE = 0xc4;
+
+  private static final String INTERCEPTION = Interception.class.getName().replace('.', '/');
+  private static final String OBJECTS = "[Ljava/lang/Object;";
+
+  private final ByteArrayOutputStream constants = new ByteArrayOutputStream();
+  private final DataOutputStream pool = new DataOutputStream(constants);
+  private final Map<String, Integer> entries = new HashMap<>();
+  private int size = 1;
+
+  private final String name;
+  private final String parent;
+
+  /**
+   * @param name: The subclass binary name.
+   * @param parent: The class to extend.
+   */
+  SubclassWriter(String name, Class<?> parent) {
+    this.name = name.replace('.', '/');
+    this.parent = parent.getName().replace('.', '/');
+  }
+
+  /**
+   * Writes the class file.
+   *
+   * @param methods: The methods to override, each uses the binding in the same position.
+   * @return The class file bytes.
+   */
+  byte[] write(List<Method> methods) {
+    try {
+      ByteArrayOutputStream body = new ByteArrayOutputStream();
+      DataOutputStream out = new DataOutputStream(body);
+      out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+      out.writeShort(classRef(name));
+      out.writeShort(classRef(parent));
+      out.writeShort(0);
+
+      out.writeShort(1);
+      out.writeShort(ACC_PUBLIC | ACC_STATIC);
+      out.writeShort(utf8(BINDINGS));
+      out.writeShort(utf8(OBJECTS));
+      out.writeShort(0);
+
+      out.writeShort(methods.size() + 1);
+      writeConstructor(out);
+      for (int i = 0; i < methods.size(); i++) {
+        writeMethod(out, methods.get(i), i);
+      }
+      out.writeShort(0);
+
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      DataOutputStream file = new DataOutputStream(bytes);
+      file.writeInt(0xCAFEBABE);
+      file.writeShort(0);
+      file.writeShort(VERSION);
+      file.writeShort(size);
+      constants.writeTo(file);
+      body.writeTo(file);
+      return bytes.toByteArray();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private void writeConstructor(DataOutputStream out) throws IOException {
+    Code code = new Code();
+    code.op(ALOAD_0);
+    code.op(INVOKESPECIAL).u2(methodRef(parent, "<init>", "()V"));
+    code.op(RETURN);
+    writeMethod(out, "<init>", "()V", code, 1, 1);
+  }
+
+  private void writeMethod(DataOutputStream out, Method method, int index) throws IOException {
+    String descriptor = MethodType.methodType(method.getReturnType(), method.getParameterTypes())
+        .toMethodDescriptorString();
+    int bindings = fieldRef(name, BINDINGS, OBJECTS);
+    int position = integer(index);
+    int enter = methodRef(INTERCEPTION, "enter", "(Ljava/lang/Object;)J");
+    int exit = methodRef(INTERCEPTION, "exit", "(Ljava/lang/Object;JLjava/lang/Throwable;)V");
+
+    int arguments = 1;
+    for (Class<?> parameter : method.getParameterTypes()) {
+      arguments += slots(parameter);
+    }
+    int token = arguments;
+    int result = token + 2;
+    Class<?> type = method.getReturnType();
+
+    Code code = new Code();
+    code.binding(bindings, position);
+    code.op(INVOKESTATIC).u2(enter);
+    code.local(LSTORE, token);
+
+    int start = code.length();
+    code.op(ALOAD_0);
+    int slot = 1;
+    for (Class<?> parameter : method.getParameterTypes()) {
+      code.local(load(parameter), slot);
+      slot += slots(parameter);
+    }
+    code.op(INVOKESPECIAL).u2(methodRef(parent, method.getName(), descriptor));
+    if (type != void.class) {
+      code.local(load(type) + (LSTORE - LLOAD), result);
+    }
+    int end = code.length();
+
+    code.binding(bindings, position);
+    code.local(LLOAD, token);
+    code.op(ACONST_NULL);
+    code.op(INVOKESTATIC).u2(exit);
+    if (type == void.class) {
+      code.op(RETURN);
+    } else {
+      code.local(load(type), result);
+      code.op(returns(type));
+    }
+
+    int handler = code.length();
+    code.local(ASTORE, result);
+    code.binding(bindings, position);
+    code.local(LLOAD, token);
+    code.local(ALOAD, result);
+    code.op(INVOKESTATIC).u2(exit);
+    code.local(ALOAD, result);
+    code.op(ATHROW);
+    code.handler(start, end, handler);
+
+    int stack = Math.max(arguments, Math.max(4, slots(type)));
+    int locals = result + Math.max(1, slots(type));
+    writeMethod(out, method.getName(), descriptor, code, stack, locals);
+  }
+
+  private void writeMethod(DataOutputStream out, String method, String descriptor, Code code, int stack, int locals)
+      throws IOException {
+    out.writeShort(ACC_PUBLIC);
+    out.writeShort(utf8(method));
+    out.writeShort(utf8(descriptor));
+    out.writeShort(1);
+
+    out.writeShort(utf8("Code"));
+    out.writeInt(12 + code.length() + code.handlers.size());
+    out.writeShort(stack);
+    out.writeShort(locals);
+    out.writeInt(code.length());
+    code.instructions.writeTo(out);
+    out.writeShort(code.handlers.size() / 8);
+    code.handlers.writeTo(out);
+    out.writeShort(0);
+  }
+
+  private static int slots(Class<?> type) {
+    if (type == void.class) {
+      return 0;
+    }
+
+    return type == long.class || type == double.class
+        ? 2
+        : 1;
+  }
+
+  // The load instruction, the matching store has the same distance as between LLOAD and LSTORE.
+  private static int load(Class<?> type) {
+    if (!type.isPrimitive()) {
+      return ALOAD;
+    }
+
+    if (type == long.class) {
+      return LLOAD;
+    }
+
+    if (type == float.class) {
+      return 0x17;
+    }
+
+    return type == double.class
+        ? 0x18
+        : 0x15;
+  }
+
+  private static int returns(Class<?> type) {
+    if (!type.isPrimitive()) {
+      return 0xb0;
+    }
+
+    if (type == long.class) {
+      return 0xad;
+    }
+
+    if (type == float.class) {
+      return 0xae;
+    }
+
+    return type == double.class
+        ? 0xaf
+        : 0xac;
+  }
+
+  private int utf8(String value) throws IOException {
+    String key = "U" + value;
+    Integer index = entries.get(key);
+    if (index != null) {
+      return index;
+    }
+
+    pool.writeByte(1);
+    pool.writeUTF(value);
+    return add(key);
+  }
+
+  private int integer(int value) throws IOException {
+    String key = "I" + value;
+    Integer index = entries.get(key);
+    if (index != null) {
+      return index;
+    }
+
+    pool.writeByte(3);
+    pool.writeInt(value);
+    return add(key);
+  }
+
+  private int classRef(String internalName) throws IOException {
+    String key = "C" + internalName;
+    Integer index = entries.get(key);
+    if (index != null) {
+      return index;
+    }
+
+    int utf8 = utf8(internalName);
+    pool.writeByte(7);
+    pool.writeShort(utf8);
+    return add(key);
+  }
+
+  private int fieldRef(String owner, String field, String descriptor) throws IOException {
+    return memberRef(9, "F", owner, field, descriptor);
+  }
+
+  private int methodRef(String owner, String method, String descriptor) throws IOException {
+    return memberRef(10, "M", owner, method, descriptor);
+  }
+
+  private int memberRef(int tag, String prefix, String owner, String member, String descriptor) throws IOException {
+    String key = prefix + owner + "." + member + descriptor;
+    Integer index = entries.get(key);
+    if (index != null) {
+      return index;
+    }
+
+    int clazz = classRef(owner);
+    int nameAndType = nameAndType(member, descriptor);
+    pool.writeByte(tag);
+    pool.writeShort(clazz);
+    pool.writeShort(nameAndType);
+    return add(key);
+  }
+
+  private int nameAndType(String method, String descriptor) throws IOException {
+    String key = "N" + method + descriptor;
+    Integer index = entries.get(key);
+    if (index != null) {
+      return index;
+    }
+
+    int utf8 = utf8(method);
+    int type = utf8(descriptor);
+    pool.writeByte(12);
+    pool.writeShort(utf8);
+    pool.writeShort(type);
+    return add(key);
+  }
+
+  private int add(String key) {
+    int index = size++;
+    if (size > 0xFFFF) {
+      throw new RuntimeException("Too many constants for " + name + "!");
+    }
+
+    entries.put(key, index);
+    return index;
+  }
+
+  /**
+   * The instructions and exception table of a single method.
+   */
+  private static final class Code {
+    private final ByteArrayOutputStream instructions = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream handlers = new ByteArrayOutputStream();
+
+    Code op(int opcode) {
+      instructions.write(opcode);
+      return this;
+    }
+
+    Code u2(int value) {
+      instructions.write(value >>> 8);
+      instructions.write(value);
+      return this;
+    }
+
+    // Pushes the element of the bindings array at the position.
+    void binding(int bindings, int position) {
+      op(GETSTATIC).u2(bindings);
+      op(LDC_W).u2(position);
+      op(AALOAD);
+    }
+
+    // A load or store of a local variable, using the wide form when the index does not fit a byte.
+    void local(int opcode, int index) {
+      if (index > 0xFF) {
+        op(WIDE).op(opcode).u2(index);
+      } else {
+        op(opcode).op(index);
+      }
+    }
+
+    // Catches anything thrown between start and end.
+    void handler(int start, int end, int handler) {
+      for (int value : new int[] {start, end, handler, 0}) {
+        handlers.write(value >>> 8);
+        handlers.write(value);
+      }
+    }
+
+    int length() {
+      return instructions.size();
+    }
+  }
+}
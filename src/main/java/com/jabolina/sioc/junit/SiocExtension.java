@@ -0,0 +1,167 @@
+/*
+ * Copyright 2022-present jabolina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jabolina.sioc.junit;
+
+import com.jabolina.sioc.Configuration;
+import com.jabolina.sioc.Inject;
+import com.jabolina.sioc.LifecycleManagement;
+import com.jabolina.sioc.util.Reflections;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionConfigurationException;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.platform.commons.support.AnnotationSupport;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * The JUnit 5 extension behind {@link SiocTest}.
+ *
+ * Shared containers are kept in the root {@link ExtensionContext.Store}, which is closed only after all tests in the
+ * run finish, so test classes with the same package and configuration reuse the already started container instead
+ * of scanning, sorting and wiring again. The store creates each value only once, even with tests running in parallel.
+ * Fresh containers are kept in the test method store and stopped once the method finishes.
+ */
+public class SiocExtension implements BeforeEachCallback {
+
+  // Stores also look up values in the parent contexts, so fresh containers need their own namespace.
+  private static final ExtensionContext.Namespace SHARED =
+      ExtensionContext.Namespace.create(SiocExtension.class);
+  private static final ExtensionContext.Namespace FRESH =
+      ExtensionContext.Namespace.create(SiocExtension.class, "fresh");
+
+  @Override
+  public void beforeEach(ExtensionContext context) {
+    SiocTest annotation = annotation(context);
+    String packageName = annotation.value().isEmpty()
+        ? context.getRequiredTestClass().getPackageName()
+        : annotation.value();
+    Key key = new Key(packageName, annotation.configuration());
+
+    ExtensionContext.Store store = annotation.fresh()
+        ? context.getStore(FRESH)
+        : context.getRoot().getStore(SHARED);
+    Container container = store.getOrComputeIfAbsent(key, Container::new, Container.class);
+
+    Object instance = context.getRequiredTestInstance();
+    inject(container.management, instance);
+  }
+
+  private SiocTest annotation(ExtensionContext context) {
+    // Nested test classes use the annotation from the enclosing class.
+    for (Class<?> clazz = context.getRequiredTestClass(); clazz != null; clazz = clazz.getEnclosingClass()) {
+      SiocTest annotation = AnnotationSupport.findAnnotation(clazz, SiocTest.class).orElse(null);
+      if (annotation != null) {
+        return annotation;
+      }
+    }
+
+    throw new ExtensionConfigurationException("Test class must have the @SiocTest annotation");
+  }
+
+  private void inject(LifecycleManagement management, Object instance) {
+    for (Class<?> clazz = instance.getClass(); clazz != Object.class; clazz = clazz.getSuperclass()) {
+      for (Field field : clazz.getDeclaredFields()) {
+        if (Reflections.containsAnnotation(field, Inject.class)) {
+          Object component = management.component(field.getType())
+              .orElseThrow(() -> new ExtensionConfigurationException("No component for field " + field));
+          field.trySetAccessible();
+
+          try {
+            field.set(instance, component);
+          } catch (IllegalAccessException e) {
+            throw new ExtensionConfigurationException("Failed injecting field " + field, e);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * The configuration used when the test does not provide one.
+   */
+  public static final class DefaultConfiguration implements Supplier<Configuration> {
+
+    @Override
+    public Configuration get() {
+      return Configuration.defaults();
+    }
+  }
+
+  /**
+   * Identifies a container, by the package and the configuration supplier.
+   */
+  private static final class Key {
+    private final String packageName;
+    private final Class<? extends Supplier<Configuration>> configuration;
+
+    private Key(String packageName, Class<? extends Supplier<Configuration>> configuration) {
+      this.packageName = packageName;
+      this.configuration = configuration;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+
+      if (!(o instanceof Key)) {
+        return false;
+      }
+
+      Key other = (Key) o;
+      return packageName.equals(other.packageName) && configuration.equals(other.configuration);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(packageName, configuration);
+    }
+  }
+
+  /**
+   * An initialized and started container. JUnit calls {@link #close()} when the owning store is closed.
+   */
+  private static final class Container implements ExtensionContext.Store.CloseableResource {
+    private final LifecycleManagement management;
+
+    private Container(Key key) {
+      this.management = new LifecycleManagement(key.packageName, configuration(key.configuration));
+      management.initialize();
+      management.start();
+    }
+
+    private static Configuration configuration(Class<? extends Supplier<Configuration>> clazz) {
+      try {
+        Constructor<? extends Supplier<Configuration>> constructor = clazz.getDeclaredConstructor();
+        constructor.trySetAccessible();
+        return constructor.newInstance().get();
+      } catch (NoSuchMethodException | InstantiationException | IllegalAccessException
+          | InvocationTargetException e) {
+        throw new ExtensionConfigurationException("Failed creating configuration with " + clazz.getName(), e);
+      }
+    }
+
+    @Override
+    public void close() {
+      management.stop();
+    }
+  }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2022-present jabolina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jabolina.sioc.junit;
+
+import com.jabolina.sioc.Configuration;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.function.Supplier;
+
+/**
+ * Runs the test class with a started {@link com.jabolina.sioc.LifecycleManagement}, and injects the components in the
+ * test fields with the {@link com.jabolina.sioc.Inject} annotation.
+ *
+ * By default, the container is initialized and started only once for each package and configuration, and shared by
+ * all test classes using the same values. The container is stopped after all tests finish. Since the same instances
+ * are shared, tests must not rely on the state left by other test classes. Use {@link #fresh()} when the test needs
+ * its own container.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Inherited
+@ExtendWith(SiocExtension.class)
+public @interface SiocTest {
+
+  /**
+   * The package to manage. If this is empty, the test class package is used instead.
+   *
+   * @return The package name.
+   */
+  String value() default "";
+
+  /**
+   * The class that creates the container {@link Configuration}, it must provide a constructor without arguments. The
+   * class is part of the key to share the container, tests with distinct classes do not share the same container.
+   *
+   * @return The configuration supplier class.
+   */
+  Class<? extends Supplier<Configuration>> configuration() default SiocExtension.DefaultConfiguration.class;
+
+  /**
+   * Whether each test method must run with a new container. The container is stopped after the test finishes.
+   *
+   * @return true to not share the container.
+   */
+  boolean fresh() default false;
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2022-present jabolina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jabolina.sioc.metrics;
+
+import net.jcip.annotations.Immutable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A snapshot of the bytes allocated by each component, ranked from the most to the least expensive.
+ *
+ * The {@link #toString()} renders a table, so it is easy to dump the report in the logs after the start.
+ */
+@Immutable
+public final class AllocationReport implements Iterable<AllocationReport.Entry> {
+
+  private final List<Entry> entries;
+
+  AllocationReport(List<Entry> entries) {
+    List<Entry> ranked = new ArrayList<>(entries);
+    ranked.sort(Comparator.comparingLong(Entry::total).reversed());
+    this.entries = Collections.unmodifiableList(ranked);
+  }
+
+  /**
+   * The entries for each component, ranked by the total bytes allocated.
+   *
+   * @return An unmodifiable list ranked by cost.
+   */
+  public List<Entry> entries() {
+    return entries;
+  }
+
+  /**
+   * The sum of bytes allocated by all components.
+   *
+   * @return The total bytes allocated.
+   */
+  public long total() {
+    long total = 0;
+    for (Entry entry : entries) {
+      total += entry.total();
+    }
+
+    return total;
+  }
+
+  @Override
+  public Iterator<Entry> iterator() {
+    return entries.iterator();
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    sb.append(String.format("%-60s %14s %14s %14s %14s%n", "component", "construction", "injection", "start", "total"));
+    for (Entry entry : entries) {
+      sb.append(String.format("%-60s %14d %14d %14d %14d%n", entry.component,
+          entry.construction, entry.injection, entry.start, entry.total()));
+    }
+
+    return sb.toString();
+  }
+
+  /**
+   * The bytes allocated by a single component in each phase.
+   */
+  @Immutable
+  public static final class Entry {
+    private final String component;
+    private final long construction;
+    private final long injection;
+    private final long start;
+
+    Entry(String component, long construction, long injection, long start) {
+      this.component = component;
+      this.construction = construction;
+      this.injection = injection;
+      this.start = start;
+    }
+
+    public String component() {
+      return component;
+    }
+
+    public long construction() {
+      return construction;
+    }
+
+    public long injection() {
+      return injection;
+    }
+
+    public long start() {
+      return start;
+    }
+
+    public long total() {
+      return construction + injection + start;
+    }
+  }
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2022-present jabolina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jabolina.sioc.metrics;
+
+import net.jcip.annotations.ThreadSafe;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Measures the bytes allocated by the calling thread while a component executes some phase of its lifecycle.
+ *
+ * We rely on {@link com.sun.management.ThreadMXBean#getThreadAllocatedBytes(long)}, so the measure is only the bytes
+ * allocated in the thread executing the phase, and not what is retained in the heap afterwards. Allocations done by
+ * other threads, e.g., a thread pool created during start, are not accounted to the component.
+ *
+ * When the JVM does not support the measurement, the tracker is disabled and all operations are no-op. The usage is:
+ *
+ * <pre>
+ *   tracker.track(() -&gt; {
+ *     long mark = tracker.mark();
+ *     // Execute the phase.
+ *     tracker.record(component, Phase.CONSTRUCTION, mark);
+ *   });
+ * </pre>
+ *
+ * Only the phases executing inside {@link #track(Runnable)} are recorded, so the container accounts the wiring and
+ * the start, and not the instances created later by the application, e.g., borrowing from a pool. A measurement
+ * excludes the bytes already recorded by measurements nested in it, so each byte is accounted to a single component
+ * phase, and the {@link AllocationReport#total()} does not count anything twice.
+ */
+@ThreadSafe
+public final class AllocationTracker {
+
+  private static final AllocationTracker DISABLED = new AllocationTracker(null);
+
+  // Null when disabled.
+  private final com.sun.management.ThreadMXBean threads;
+  private final Map<String, AtomicLongArray> allocations = new ConcurrentHashMap<>();
+  // The bytes already recorded and how many track calls are executing, only set for threads inside a track call.
+  private final ThreadLocal<long[]> state = new ThreadLocal<>();
+
+  private AllocationTracker(com.sun.management.ThreadMXBean threads) {
+    this.threads = threads;
+  }
+
+  /**
+   * Creates a new tracker, if the JVM supports measuring the thread allocations. Otherwise, a disabled tracker.
+   *
+   * The measurement is a setting of the whole JVM, enabled by default in HotSpot. If it was disabled, we enable it
+   * and leave it enabled, since other trackers and other libraries in the same JVM can rely on it after this one is
+   * no longer used. Applications that disabled it on purpose should not enable allocation tracking.
+   *
+   * @return A new {@link AllocationTracker}.
+   */
+  public static AllocationTracker create() {
+    com.sun.management.ThreadMXBean threads = threads();
+    if (threads == null) {
+      return DISABLED;
+    }
+
+    if (!threads.isThreadAllocatedMemoryEnabled()) {
+      threads.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    return new AllocationTracker(threads);
+  }
+
+  /**
+   * Verifies if the JVM supports measuring the thread allocations, without changing any setting.
+   *
+   * @return true if {@link #create()} returns an enabled tracker.
+   */
+  public static boolean isSupported() {
+    return threads() != null;
+  }
+
+  private static com.sun.management.ThreadMXBean threads() {
+    java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+      return null;
+    }
+
+    com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+    return threads.isThreadAllocatedMemorySupported()
+        ? threads
+        : null;
+  }
+
+  /**
+   * A tracker that does not measure anything.
+   *
+   * @return The disabled {@link AllocationTracker}.
+   */
+  public static AllocationTracker disabled() {
+    return DISABLED;
+  }
+
+  public boolean isEnabled() {
+    return threads != null;
+  }
+
+  /**
+   * Record the measurements the action executes in the current thread. Measurements outside of it are ignored.
+   *
+   * @param action: The action executing the phases.
+   */
+  public void track(Runnable action) {
+    if (threads == null) {
+      action.run();
+      return;
+    }
+
+    long[] current = state.get();
+    if (current == null) {
+      current = new long[2];
+      state.set(current);
+    }
+
+    current[1]++;
+    try {
+      action.run();
+    } finally {
+      if (--current[1] == 0) {
+        state.remove();
+      }
+    }
+  }
+
+  /**
+   * The bytes allocated by the current thread so far, without the bytes already recorded. This is used as the
+   * starting point of a measurement.
+   *
+   * @return The allocated bytes, or 0 if disabled.
+   */
+  public long mark() {
+    if (threads == null) {
+      return 0;
+    }
+
+    long[] current = state.get();
+    long recorded = current == null
+        ? 0
+        : current[0];
+    return threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - recorded;
+  }
+
+  /**
+   * Accounts the bytes allocated by the current thread since the given mark to the component phase, except the bytes
+   * recorded meanwhile by nested measurements. Does nothing outside of {@link #track(Runnable)}.
+   *
+   * @param component: The component name.
+   * @param phase: The phase that executed.
+   * @param mark: The value returned by {@link #mark()} before the phase executed.
+   */
+  public void record(String component, Phase phase, long mark) {
+    if (threads == null) {
+      return;
+    }
+
+    long[] current = state.get();
+    if (current == null) {
+      return;
+    }
+
+    long allocated = mark() - mark;
+    current[0] += allocated;
+    allocations.computeIfAbsent(component, ignore -> new AtomicLongArray(Phase.values().length))
+        .addAndGet(phase.ordinal(), allocated);
+  }
+
+  /**
+   * Creates a report with everything measured so far.
+   *
+   * @return A new {@link AllocationReport}.
+   */
+  public AllocationReport report() {
+    List<AllocationReport.Entry> entries = new ArrayList<>(allocations.size());
+    for (Map.Entry<String, AtomicLongArray> entry : allocations.entrySet()) {
+      AtomicLongArray phases = entry.getValue();
+      entries.add(new AllocationReport.Entry(entry.getKey(),
+          phases.get(Phase.CONSTRUCTION.ordinal()),
+          phases.get(Phase.INJECTION.ordinal()),
+          phases.get(Phase.START.ordinal())));
+    }
+
+    return new AllocationReport(entries);
+  }
+
+  /**
+   * The component lifecycle phases we measure.
+   */
+  public enum Phase {
+    CONSTRUCTION,
+    INJECTION,
+    START,
+  }
+}
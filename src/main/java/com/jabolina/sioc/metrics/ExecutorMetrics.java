@@ -0,0 +1,74 @@
+/*
+ * Copyright 2022-present jabolina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jabolina.sioc.metrics;
+
+import net.jcip.annotations.Immutable;
+
+/**
+ * A snapshot of the usage of a container executor. The queued tasks include the tasks waiting for the concurrency
+ * limit of a component.
+ */
+@Immutable
+public final class ExecutorMetrics {
+  private final String executor;
+  private final boolean virtual;
+  private final int threads;
+  private final long queued;
+  private final long active;
+  private final long completed;
+
+  public ExecutorMetrics(String executor, boolean virtual, int threads, long queued, long active, long completed) {
+    this.executor = executor;
+    this.virtual = virtual;
+    this.threads = threads;
+    this.queued = queued;
+    this.active = active;
+    this.completed = completed;
+  }
+
+  public String executor() {
+    return executor;
+  }
+
+  public boolean virtual() {
+    return virtual;
+  }
+
+  /**
+   * @return The number of threads, or 0 for a thread per task.
+   */
+  public int threads() {
+    return threads;
+  }
+
+  public long queued() {
+    return queued;
+  }
+
+  public long active() {
+    return active;
+  }
+
+  public long completed() {
+    return completed;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s[threads=%s, queued=%d, active=%d, completed=%d]",
+        executor, virtual ? "virtual" : String.valueOf(threads), queued, active, completed);
+  }
+}
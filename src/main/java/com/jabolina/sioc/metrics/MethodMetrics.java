@@ -0,0 +1,115 @@
+/*
+ * Copyright 2022-present jabolina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jabolina.sioc.metrics;
+
+import net.jcip.annotations.Immutable;
+
+import java.util.Arrays;
+
+/**
+ * A snapshot of the calls to a single component method, with the latency histogram. The bucket {@code i} counts the
+ * calls that took less than 2^i nanoseconds, and at least 2^(i-1) nanoseconds.
+ */
+@Immutable
+public final class MethodMetrics {
+
+  /**
+   * The number of buckets, enough for any non-negative long value.
+   */
+  public static final int BUCKETS = 64;
+
+  private final String method;
+  private final long[] buckets;
+  private final long calls;
+  private final long failures;
+  private final long totalNanos;
+
+  public MethodMetrics(String method, long[] buckets, long failures, long totalNanos) {
+    if (buckets.length != BUCKETS) {
+      throw new IllegalArgumentException("Histogram must have " + BUCKETS + " buckets!");
+    }
+
+    this.method = method;
+    this.buckets = buckets.clone();
+    this.calls = Arrays.stream(buckets).sum();
+    this.failures = failures;
+    this.totalNanos = totalNanos;
+  }
+
+  public String method() {
+    return method;
+  }
+
+  public long calls() {
+    return calls;
+  }
+
+  public long failures() {
+    return failures;
+  }
+
+  public long totalNanos() {
+    return totalNanos;
+  }
+
+  /**
+   * @return A copy of the histogram.
+   */
+  public long[] buckets() {
+    return buckets.clone();
+  }
+
+  /**
+   * The average latency.
+   *
+   * @return The average in nanoseconds, or 0 if there were no calls.
+   */
+  public double meanNanos() {
+    return calls == 0
+        ? 0
+        : (double) totalNanos / calls;
+  }
+
+  /**
+   * An upper bound for the latency percentile. Since the buckets are powers of two, the real value is at most two
+   * times smaller than the bound.
+   *
+   * @param percentile: A value between 0 and 100.
+   * @return The bound in nanoseconds, or 0 if there were no calls.
+   */
+  public long percentileNanos(double percentile) {
+    if (percentile < 0 || percentile > 100) {
+      throw new IllegalArgumentException("Percentile must be between 0 and 100!");
+    }
+
+    long rank = (long) Math.ceil(calls * percentile / 100);
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += buckets[i];
+      if (seen > 0 && seen >= rank) {
+        return (1L << i) - 1;
+      }
+    }
+
+    return 0;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s[calls=%d, failures=%d, mean=%.0fns, p50<=%dns, p99<=%dns]",
+        method, calls, failures, meanNanos(), percentileNanos(50), percentileNanos(99));
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2022-present jabolina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jabolina.sioc.metrics;
+
+import net.jcip.annotations.Immutable;
+
+/**
+ * A snapshot of the usage of a component pool. A hit is a borrow served by an instance already in the pool, and a
+ * miss is a borrow that had to create a new instance.
+ */
+@Immutable
+public final class PoolMetrics {
+  private final String component;
+  private final int capacity;
+  private final int available;
+  private final long hits;
+  private final long misses;
+
+  public PoolMetrics(String component, int capacity, int available, long hits, long misses) {
+    this.component = component;
+    this.capacity = capacity;
+    this.available = available;
+    this.hits = hits;
+    this.misses = misses;
+  }
+
+  public String component() {
+    return component;
+  }
+
+  public int capacity() {
+    return capacity;
+  }
+
+  public int available() {
+    return available;
+  }
+
+  public long hits() {
+    return hits;
+  }
+
+  public long misses() {
+    return misses;
+  }
+
+  /**
+   * The ratio of borrows served by the pool.
+   *
+   * @return A value between 0 and 1, or 0 if nothing was borrowed.
+   */
+  public double hitRatio() {
+    long total = hits + misses;
+    return total == 0
+        ? 0
+        : (double) hits / total;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s[capacity=%d, available=%d, hits=%d, misses=%d]",
+        component, capacity, available, hits, misses);
+  }
+}
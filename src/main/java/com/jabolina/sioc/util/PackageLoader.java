@@ -16,15 +16,23 @@
 package com.jabolina.sioc.util;
 
 import java.io.BufferedReader;
-import java.io.InputStream;
+import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.JarURLConnection;
+import java.net.URL;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
 import java.util.stream.Collectors;
 
 /**
  * Helper to load all classes from a specified package.
+ *
+ * The package can be either a directory or inside a jar file. For jar files, the jar must contain the directory
+ * entries, which is the default when using the jar tool.
  */
 public final class PackageLoader {
   private static final String CLASS_EXTENSION = ".class";
@@ -38,25 +46,61 @@ public final class PackageLoader {
    * @return A list containing the classes.
    */
   public static List<Class<?>> load(String packageName) {
-    InputStream input = ClassLoader.getSystemClassLoader()
-        .getResourceAsStream(packageName.replace(".", "/"));
+    return load(packageName, ClassLoader.getSystemClassLoader());
+  }
+
+  /**
+   * Load all classes from the specified package, using the given {@link ClassLoader}.
+   *
+   * @param packageName: Package to load classes.
+   * @param loader: The loader to find and load the classes.
+   * @return A list containing the classes.
+   */
+  public static List<Class<?>> load(String packageName, ClassLoader loader) {
+    String path = packageName.replace(".", "/");
+    URL url = loader.getResource(path);
 
-    // Means that we are unable to create an input stream pointing to the package.
-    if (input == null) {
+    // Means that we are unable to find the package.
+    if (url == null) {
       return Collections.emptyList();
     }
 
-    BufferedReader reader = new BufferedReader(new InputStreamReader(input));
-    return reader.lines()
-        .filter(line -> line.endsWith(CLASS_EXTENSION))
-        .map(c -> load(c, packageName))
+    List<String> files = "jar".equals(url.getProtocol())
+        ? jarEntries(url, path)
+        : directoryEntries(url);
+    return files.stream()
+        .filter(file -> file.endsWith(CLASS_EXTENSION))
+        .map(c -> load(c, packageName, loader))
         .filter(Objects::nonNull)
         .collect(Collectors.toList());
   }
 
-  private static Class<?> load(String className, String packageName) {
+  private static List<String> directoryEntries(URL url) {
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(url.openStream()))) {
+      return reader.lines().collect(Collectors.toList());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static List<String> jarEntries(URL url, String path) {
+    String prefix = path + "/";
+    try {
+      // The jar file is cached and shared by the connections, so we must not close it.
+      JarFile jar = ((JarURLConnection) url.openConnection()).getJarFile();
+      return jar.stream()
+          .map(JarEntry::getName)
+          .filter(name -> name.startsWith(prefix) && name.indexOf('/', prefix.length()) < 0)
+          .map(name -> name.substring(prefix.length()))
+          .collect(Collectors.toList());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static Class<?> load(String className, String packageName, ClassLoader loader) {
     try {
-      return Class.forName(name(className, packageName));
+      return Class.forName(name(className, packageName), true, loader);
     } catch (ClassNotFoundException ignore) { }
 
     return null;
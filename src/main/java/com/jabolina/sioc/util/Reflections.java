@@ -18,9 +18,12 @@ package com.jabolina.sioc.util;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.AnnotatedElement;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 public final class Reflections {
 
@@ -38,16 +41,52 @@ public final class Reflections {
   }
 
   /**
-   * Find a method in the object that contains the given annotation. We return only the first method found.
+   * Find a method in the object that contains the given annotation. We return only the first method found, starting
+   * from the object class and going through its super classes, e.g., when the instance is a generated subclass.
    *
    * @param object: The object to be verified.
    * @param annotation: The method annotation.
    * @return An {@link Optional<Method>} with the __first__ method found, an empty {@link Optional<Method>} otherwise.
    */
   public static Optional<Method> findMethodWith(Object object, Class<? extends Annotation> annotation) {
-    List<Method> methods = Arrays.asList(object.getClass().getDeclaredMethods());
-    return methods.stream()
-        .filter(m -> m.isAnnotationPresent(annotation))
-        .findFirst();
+    List<Method> methods = findMethodsWith(object, annotation);
+    return methods.isEmpty()
+        ? Optional.empty()
+        : Optional.of(methods.get(0));
+  }
+
+  /**
+   * Find all methods in the object class and its super classes that contain the given annotation. A method overridden
+   * is only returned once, in the most specific declaration with the annotation.
+   *
+   * @param object: The object to be verified.
+   * @param annotation: The method annotation.
+   * @return A {@link List<Method>} with all methods found, possibly empty.
+   */
+  public static List<Method> findMethodsWith(Object object, Class<? extends Annotation> annotation) {
+    return findMethodsWith(object.getClass(), annotation);
+  }
+
+  /**
+   * Find all methods in the class and its super classes that contain the given annotation. A method overridden is
+   * only returned once, in the most specific declaration with the annotation.
+   *
+   * @param type: The class to be verified.
+   * @param annotation: The method annotation.
+   * @return A {@link List<Method>} with all methods found, possibly empty.
+   */
+  public static List<Method> findMethodsWith(Class<?> type, Class<? extends Annotation> annotation) {
+    List<Method> methods = new ArrayList<>();
+    Set<String> seen = new HashSet<>();
+    for (Class<?> clazz = type; clazz != null && clazz != Object.class; clazz = clazz.getSuperclass()) {
+      for (Method method : clazz.getDeclaredMethods()) {
+        if (method.isAnnotationPresent(annotation)
+            && seen.add(method.getName() + Arrays.toString(method.getParameterTypes()))) {
+          methods.add(method);
+        }
+      }
+    }
+
+    return methods;
   }
 }
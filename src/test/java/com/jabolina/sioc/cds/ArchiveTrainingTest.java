@@ -0,0 +1,132 @@
+/*
+ * Copyright 2022-present jabolina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jabolina.sioc.cds;
+
+import com.jabolina.sioc.LifecycleManagement;
+import com.jabolina.sioc.cds.fixture.TrainingComponents;
+import net.jcip.annotations.GuardedBy;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Starts three JVMs, skip with {@code mvn test -DexcludedGroups=cds}. The startup time is measured by
+ * {@code build-tools/cds-benchmark.sh}.
+ */
+@Tag("cds")
+public class ArchiveTrainingTest {
+
+  private static final String PACKAGE = TrainingComponents.class.getPackageName();
+
+  @TempDir
+  Path directory;
+
+  @Test
+  public void testTrainingArchive() throws Exception {
+    String classPath = classPath();
+    ArchiveTraining.Archive archive = ArchiveTraining.train(PACKAGE, classPath, directory);
+    assertTrue(Files.size(archive.archive()) > 0);
+
+    List<String> classes = Files.readAllLines(archive.classList());
+    assertTrue(classes.contains(internal(LifecycleManagement.class.getName())));
+    assertTrue(classes.contains(internal(PACKAGE + ".TrainingComponents$Repository")));
+    assertTrue(classes.contains(internal(PACKAGE + ".TrainingComponents$Service")));
+
+    // With -Xshare:on the JVM fails if it can not use the archive.
+    String output = run(List.of("-Xshare:on", archive.jvmOption(), "-Xlog:class+load=info"), classPath);
+    assertTrue(output.contains(PACKAGE + ".TrainingComponents$Repository source: shared objects file"), output);
+    assertTrue(output.contains(LifecycleManagement.class.getName() + " source: shared objects file"), output);
+  }
+
+  private String run(List<String> options, String classPath) throws Exception {
+    List<String> command = new ArrayList<>();
+    command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+    command.addAll(options);
+    command.addAll(List.of("-cp", classPath, ArchiveTraining.class.getName(), PACKAGE));
+
+    Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+    String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+    assertEquals(0, process.waitFor(), output);
+    return output;
+  }
+
+  /**
+   * AppCDS only archives classes from jar files, so we package the framework and the training components.
+   */
+  private String classPath() throws IOException {
+    Path jar = directory.resolve("application.jar");
+    Path framework = location(LifecycleManagement.class);
+    Path tests = location(ArchiveTrainingTest.class);
+
+    try (JarOutputStream output = new JarOutputStream(Files.newOutputStream(jar))) {
+      write(output, framework, framework);
+      // The parent directories are already in the framework entries.
+      write(output, tests, tests.resolve(PACKAGE.replace('.', '/')));
+    }
+
+    return jar + File.pathSeparator + location(GuardedBy.class);
+  }
+
+  private void write(JarOutputStream output, Path root, Path start) throws IOException {
+    List<Path> paths;
+    try (Stream<Path> files = Files.walk(start)) {
+      paths = files.sorted().collect(Collectors.toList());
+    }
+
+    for (Path path : paths) {
+      String name = root.relativize(path).toString().replace(File.separatorChar, '/');
+      if (name.isEmpty()) {
+        continue;
+      }
+
+      // The package scan needs the directory entries.
+      if (Files.isDirectory(path)) {
+        output.putNextEntry(new JarEntry(name + "/"));
+      } else {
+        output.putNextEntry(new JarEntry(name));
+        Files.copy(path, output);
+      }
+      output.closeEntry();
+    }
+  }
+
+  private static Path location(Class<?> clazz) {
+    try {
+      return Path.of(clazz.getProtectionDomain().getCodeSource().getLocation().toURI());
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private static String internal(String name) {
+    return name.replace('.', '/');
+  }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2022-present jabolina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jabolina.sioc.cds.fixture;
+
+import com.jabolina.sioc.Inject;
+import com.jabolina.sioc.Managed;
+import com.jabolina.sioc.Start;
+import com.jabolina.sioc.Stop;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Components for the training run. These are in their own package, without test dependencies, since the training
+ * executes in a new JVM with only the framework in the class path.
+ */
+public final class TrainingComponents {
+
+  private TrainingComponents() { }
+
+  @Managed
+  static class Repository {
+    private final Map<String, String> values = new HashMap<>();
+
+    @Start
+    public void start() {
+      values.put("started", "true");
+    }
+
+    @Stop
+    public void stop() {
+      values.clear();
+    }
+  }
+
+  @Managed
+  static class Service {
+
+    @Inject
+    private Repository repository;
+  }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2022-present jabolina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jabolina.sioc.event;
+
+import com.jabolina.sioc.Configuration;
+import com.jabolina.sioc.Inject;
+import com.jabolina.sioc.LifecycleManagement;
+import com.jabolina.sioc.Managed;
+import com.jabolina.sioc.Start;
+import com.jabolina.sioc.Subscribe;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.lang.ref.WeakReference;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class EventBusTest {
+
+  private static final int EVENTS = 5_000;
+
+  @ParameterizedTest
+  @EnumSource(WaitStrategy.class)
+  public void testDeliverAllEventsBeforeStop(WaitStrategy strategy) {
+    // A small buffer, so producers have to wait for the bus thread.
+    Configuration configuration = Configuration.defaults().withEventBus(16, 4, strategy);
+    LifecycleManagement management = new LifecycleManagement(this.getClass().getPackageName(), configuration);
+    management.initialize();
+
+    Producer producer = management.component(Producer.class).orElseThrow();
+    Listener listener = management.component(Listener.class).orElseThrow();
+    assertSame(management.events(), producer.events);
+
+    management.start();
+    management.stop();
+
+    assertEquals(EVENTS, listener.strings);
+    assertEquals(EVENTS, listener.numbers.size());
+    assertEquals(EVENTS * 2, listener.objects);
+    for (int i = 0; i < EVENTS; i++) {
+      assertEquals(i, listener.numbers.get(i));
+    }
+  }
+
+  @Test
+  public void testThreadOnlyRunsWithSubscribers() {
+    EventBus bus = new EventBus("subscribers", 16, 4, WaitStrategy.BUSY_SPIN);
+    bus.start();
+    assertFalse(bus.isConsuming());
+
+    Listener listener = new Listener();
+    bus.register(List.of(listener));
+    assertTrue(bus.isConsuming());
+
+    bus.register(List.of());
+    assertFalse(bus.isConsuming());
+
+    bus.register(List.of(listener));
+    assertTrue(bus.isConsuming());
+
+    bus.stop();
+    assertFalse(bus.isConsuming());
+    bus.register(List.of(listener));
+    assertFalse(bus.isConsuming());
+  }
+
+  @Test
+  public void testPublishFromSubscriberToFullBuffer() {
+    EventBus bus = new EventBus("full", 2, 1, WaitStrategy.BLOCKING);
+    Republisher republisher = new Republisher(bus);
+    bus.register(List.of(republisher));
+    bus.start();
+
+    // The subscriber runs in the bus thread, which can not free space while it waits.
+    assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+      bus.publish(1);
+      republisher.done.await();
+    });
+    bus.stop();
+
+    assertEquals(2, republisher.published);
+    assertTrue(republisher.failure.getMessage().contains("tryPublish"), republisher.failure::getMessage);
+  }
+
+  @Test
+  public void testCollectSubscribersInjectingTheBus() throws InterruptedException {
+    WeakReference<Listener> reference = runOnce();
+
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (reference.get() != null && System.nanoTime() < deadline) {
+      System.gc();
+      Thread.sleep(10);
+    }
+
+    assertNull(reference.get(), "The dispatch table must not retain the subscribers after the container is gone!");
+  }
+
+  private WeakReference<Listener> runOnce() {
+    LifecycleManagement management = new LifecycleManagement(this.getClass().getPackageName());
+    management.initialize();
+    management.start();
+    management.stop();
+
+    Listener listener = management.component(Listener.class).orElseThrow();
+    assertEquals(EVENTS, listener.strings);
+    return new WeakReference<>(listener);
+  }
+
+  @Managed
+  static class Producer {
+
+    @Inject
+    private EventBus events;
+
+    // Subscribers only receive events after they start, so the listener must start first.
+    @Inject
+    private Listener listener;
+
+    @Start
+    public void start() {
+      for (int i = 0; i < EVENTS; i++) {
+        events.publish("event-" + i);
+        events.publish(i);
+      }
+    }
+  }
+
+  static class Republisher {
+    private final EventBus bus;
+    private final CountDownLatch done = new CountDownLatch(1);
+    private int published = 0;
+    private IllegalStateException failure;
+
+    Republisher(EventBus bus) {
+      this.bus = bus;
+    }
+
+    @Subscribe
+    public void onNumber(Integer event) {
+      if (event != 1) {
+        return;
+      }
+
+      try {
+        for (int i = 0; i < 3; i++) {
+          bus.publish(i + 2);
+          published++;
+        }
+      } catch (IllegalStateException e) {
+        failure = e;
+      }
+      done.countDown();
+    }
+  }
+
+  @Managed
+  static class Listener {
+
+    // The bus references the subscribers, and the subscribers reference the bus.
+    @Inject
+    private EventBus events;
+
+    // Only accessed by the bus thread until it stops.
+    private final List<Integer> numbers = new ArrayList<>();
+    private int strings = 0;
+    private int objects = 0;
+
+    @Subscribe
+    public void onString(String event) {
+      strings++;
+    }
+
+    @Subscribe
+    public void onNumber(Number event) {
+      numbers.add(event.intValue());
+    }
+
+    @Subscribe
+    public void onObject(Object event) {
+      objects++;
+    }
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2022-present jabolina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jabolina.sioc.event.lifecycle;
+
+import com.jabolina.sioc.Inject;
+import com.jabolina.sioc.LifecycleManagement;
+import com.jabolina.sioc.Managed;
+import com.jabolina.sioc.Start;
+import com.jabolina.sioc.Stop;
+import com.jabolina.sioc.Subscribe;
+import com.jabolina.sioc.event.EventBus;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SubscriptionLifecycleTest {
+
+  @Test
+  public void testReceiveOnlyWhileStarted() {
+    LifecycleManagement management = new LifecycleManagement(this.getClass().getPackageName());
+    management.initialize();
+    management.start();
+
+    // The source publishes when starting and stopping, when the sinks depending on it are not started.
+    management.events().publish("published");
+    management.stop();
+
+    Sink sink = management.component(Sink.class).orElseThrow();
+    assertEquals(List.of("running: published"), sink.received);
+  }
+
+  @Managed
+  static class Source {
+
+    @Inject
+    private EventBus events;
+
+    @Start
+    public void start() {
+      events.publish("started");
+    }
+
+    @Stop
+    public void stop() {
+      events.publish("stopping");
+    }
+  }
+
+  // The subscriber method is inherited, and found the same way as the lifecycle methods.
+  abstract static class Receiver {
+    final List<String> received = Collections.synchronizedList(new ArrayList<>());
+    volatile boolean running = false;
+
+    @Subscribe
+    public void onEvent(String event) {
+      received.add((running ? "running: " : "not running: ") + event);
+    }
+  }
+
+  @Managed
+  static class Sink extends Receiver {
+
+    @Inject
+    private Source source;
+
+    @Start
+    public void start() {
+      running = true;
+    }
+
+    @Stop
+    public void stop() {
+      running = false;
+    }
+  }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2022-present jabolina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jabolina.sioc.executor;
+
+import com.jabolina.sioc.Configuration;
+import com.jabolina.sioc.Execution;
+import com.jabolina.sioc.Inject;
+import com.jabolina.sioc.LifecycleManagement;
+import com.jabolina.sioc.Managed;
+import com.jabolina.sioc.Start;
+import com.jabolina.sioc.Stop;
+import com.jabolina.sioc.metrics.ExecutorMetrics;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ExecutorTest {
+
+  private static final int TASKS = 50;
+
+  @Test
+  public void testDrainExecutorsAfterComponentsStop() throws Exception {
+    Configuration configuration = Configuration.defaults()
+        .withExecutor("io", 4)
+        .withVirtualExecutor("tasks");
+    LifecycleManagement management = new LifecycleManagement(this.getClass().getPackageName(), configuration);
+    management.initialize();
+
+    Worker worker = management.component(Worker.class).orElseThrow();
+    assertNotSame(worker.io, worker.tasks);
+
+    management.start();
+    management.stop();
+
+    // Tasks submitted while starting and stopping completed before the stop returned.
+    assertEquals(TASKS, worker.completed.get());
+    assertEquals(1, worker.maximum.get());
+    assertEquals(2, worker.background.get());
+
+    Map<String, ExecutorMetrics> metrics = management.executorMetrics().stream()
+        .collect(Collectors.toMap(ExecutorMetrics::executor, Function.identity()));
+    assertEquals(Set.of(Execution.DEFAULT, "io", "tasks"), metrics.keySet());
+    assertEquals(TASKS, metrics.get("io").completed());
+    assertEquals(0, metrics.get("io").queued());
+    assertEquals(0, metrics.get("io").active());
+    assertEquals(4, metrics.get("io").threads());
+    assertTrue(metrics.get("tasks").virtual());
+    assertEquals(1, metrics.get("tasks").completed());
+    assertEquals(1, metrics.get(Execution.DEFAULT).completed());
+
+    assertThrows(RejectedExecutionException.class, () -> worker.io.execute(() -> { }));
+  }
+
+  @Test
+  public void testComponentShutdownOnlyAffectsComponent() throws Exception {
+    LifecycleManagement management = new LifecycleManagement(this.getClass().getPackageName(),
+        Configuration.defaults().withExecutor("io", 1).withVirtualExecutor("tasks"));
+    management.initialize();
+    management.start();
+
+    Worker worker = management.component(Worker.class).orElseThrow();
+    ExecutorService executor = worker.tasks;
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> { }));
+    assertFalse(worker.io.isShutdown());
+
+    AtomicInteger executed = new AtomicInteger();
+    worker.io.submit(executed::incrementAndGet).get(5, TimeUnit.SECONDS);
+    assertEquals(1, executed.get());
+    management.stop();
+  }
+
+  @Test
+  public void testShutdownNowInterruptsRunningTasks() {
+    ManagedExecutor managed = new ManagedExecutor(ExecutorSettings.platform("interrupt", 1), Duration.ofSeconds(30));
+    managed.start();
+    ComponentExecutor executor = new ComponentExecutor("field", managed, 1);
+
+    CountDownLatch started = new CountDownLatch(1);
+    AtomicBoolean interrupted = new AtomicBoolean();
+    executor.execute(() -> {
+      started.countDown();
+      while (!Thread.currentThread().isInterrupted()) {
+        Thread.onSpinWait();
+      }
+      interrupted.set(true);
+    });
+    executor.execute(() -> { });
+
+    assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+      started.await();
+      assertEquals(1, executor.shutdownNow().size());
+      assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+      assertTrue(managed.stop());
+    });
+    assertTrue(interrupted.get());
+  }
+
+  @Managed
+  static class Worker {
+    private final AtomicInteger completed = new AtomicInteger();
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger maximum = new AtomicInteger();
+    private final AtomicInteger background = new AtomicInteger();
+
+    @Inject
+    @Execution(value = "io", concurrency = 1)
+    private ExecutorService io;
+
+    @Inject
+    @Execution("tasks")
+    private ExecutorService tasks;
+
+    @Inject
+    private Executor executor;
+
+    @Start
+    public void start() {
+      for (int i = 0; i < TASKS - 1; i++) {
+        io.execute(this::task);
+      }
+      tasks.execute(background::incrementAndGet);
+    }
+
+    @Stop
+    public void stop() {
+      io.execute(this::task);
+      executor.execute(background::incrementAndGet);
+    }
+
+    private void task() {
+      maximum.accumulateAndGet(running.incrementAndGet(), Math::max);
+      try {
+        Thread.sleep(1);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      running.decrementAndGet();
+      completed.incrementAndGet();
+    }
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2022-present jabolina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jabolina.sioc.executor.timeout;
+
+import com.jabolina.sioc.Configuration;
+import com.jabolina.sioc.Execution;
+import com.jabolina.sioc.Inject;
+import com.jabolina.sioc.LifecycleManagement;
+import com.jabolina.sioc.Managed;
+import com.jabolina.sioc.Start;
+import com.jabolina.sioc.metrics.ExecutorMetrics;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DrainTimeoutTest {
+
+  @Test
+  public void testInterruptTasksAfterDrainTimeout() throws Exception {
+    Configuration configuration = Configuration.defaults()
+        .withExecutor("io", 1)
+        .withExecutorDrainTimeout(Duration.ofMillis(100));
+    LifecycleManagement management = new LifecycleManagement(this.getClass().getPackageName(), configuration);
+    management.initialize();
+    management.start();
+
+    Endless endless = management.component(Endless.class).orElseThrow();
+    assertTrue(endless.started.await(5, TimeUnit.SECONDS));
+    assertTimeoutPreemptively(Duration.ofSeconds(10), management::stop);
+    assertTrue(endless.interrupted.get());
+
+    ExecutorMetrics metrics = management.executorMetrics().stream()
+        .filter(m -> m.executor().equals("io"))
+        .findFirst()
+        .orElseThrow();
+    assertEquals(0, metrics.queued());
+    assertEquals(0, metrics.active());
+
+    // The abandoned tasks do not count for the concurrency limit after restarting.
+    endless.interrupted.set(false);
+    management.start();
+    assertTrue(endless.started.await(5, TimeUnit.SECONDS));
+    assertTimeoutPreemptively(Duration.ofSeconds(10), management::stop);
+    assertTrue(endless.interrupted.get());
+  }
+
+  @Managed
+  static class Endless {
+    private final AtomicBoolean interrupted = new AtomicBoolean();
+    private volatile CountDownLatch started = new CountDownLatch(1);
+
+    @Inject
+    @Execution(value = "io", concurrency = 1)
+    private ExecutorService io;
+
+    @Start
+    public void start() {
+      started = new CountDownLatch(1);
+      io.execute(this::run);
+      // Waits for the first one, which never completes unless interrupted.
+      io.execute(() -> { });
+    }
+
+    private void run() {
+      started.countDown();
+      try {
+        Thread.sleep(Long.MAX_VALUE);
+      } catch (InterruptedException e) {
+        interrupted.set(true);
+      }
+    }
+  }
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright 2022-present jabolina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jabolina.sioc.intercept;
+
+import com.jabolina.sioc.Configuration;
+import com.jabolina.sioc.Inject;
+import com.jabolina.sioc.LifecycleManagement;
+import com.jabolina.sioc.Managed;
+import com.jabolina.sioc.Start;
+import com.jabolina.sioc.metrics.MethodMetrics;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class InterceptionTest {
+
+  @Test
+  public void testRecordLatencyOfPublicMethods() {
+    LatencyInterceptor latency = new LatencyInterceptor();
+    Configuration configuration = Configuration.defaults().withInterceptor(latency);
+    LifecycleManagement management = new LifecycleManagement(this.getClass().getPackageName(), configuration);
+    management.initialize();
+    management.start();
+
+    Service service = management.component(Service.class).orElseThrow();
+    Repository repository = management.component(Repository.class).orElseThrow();
+    assertNotEquals(Repository.class, repository.getClass());
+    assertSame(repository, service.repository);
+    assertEquals(1, repository.started);
+
+    assertEquals("item-7", service.find(7));
+    assertEquals(2.5, repository.ratio(5.0, 2L));
+    assertEquals(Long.MAX_VALUE, repository.count());
+    assertThrows(IllegalStateException.class, repository::fail);
+    assertEquals(3, repository.internal());
+    management.stop();
+
+    Map<String, MethodMetrics> metrics = latency.metrics().stream()
+        .collect(Collectors.toMap(MethodMetrics::method, Function.identity()));
+    String name = Repository.class.getName();
+    assertEquals(1, metrics.get(name + "#start()").calls());
+    assertEquals(1, metrics.get(name + "#find(int)").calls());
+    assertEquals(1, metrics.get(name + "#ratio(double, long)").calls());
+    assertEquals(1, metrics.get(name + "#count()").calls());
+    assertEquals(1, metrics.get(name + "#fail()").failures());
+    assertEquals(1, metrics.get(Service.class.getName() + "#find(int)").calls());
+
+    // Only public methods are intercepted.
+    assertTrue(metrics.keySet().stream().noneMatch(m -> m.endsWith("#internal()")));
+    assertTrue(metrics.get(name + "#find(int)").percentileNanos(99) > 0);
+  }
+
+  @Test
+  public void testNoInterceptionByDefault() {
+    LifecycleManagement management = new LifecycleManagement(this.getClass().getPackageName());
+    management.initialize();
+
+    Repository repository = management.component(Repository.class).orElseThrow();
+    assertEquals(Repository.class, repository.getClass());
+  }
+
+  @Test
+  public void testCollectSubclassWithComponentLoader() throws Exception {
+    WeakReference<ClassLoader> reference = interceptOnce();
+
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (reference.get() != null && System.nanoTime() < deadline) {
+      System.gc();
+      Thread.sleep(10);
+    }
+
+    assertNull(reference.get(), "The interception must not retain the component class loader!");
+  }
+
+  private WeakReference<ClassLoader> interceptOnce() throws Exception {
+    ClassLoader loader = new Redefining(Repository.class.getName());
+    Class<?> component = loader.loadClass(Repository.class.getName());
+    LatencyInterceptor latency = new LatencyInterceptor();
+    Class<?> subclass = Interception.subclass(component, "repository", latency);
+    assertNotEquals(component, subclass);
+
+    Object repository = subclass.getConstructor().newInstance();
+    assertEquals(Long.MAX_VALUE, subclass.getMethod("count").invoke(repository));
+    assertEquals(1, latency.metrics().size());
+    return new WeakReference<>(loader);
+  }
+
+  @Test
+  public void testReloadKeepingInterceptor() throws Exception {
+    LatencyInterceptor latency = new LatencyInterceptor();
+    Configuration configuration = Configuration.defaults().withInterceptor(latency);
+    LifecycleManagement management = new LifecycleManagement(this.getClass().getPackageName(), configuration);
+    management.initialize();
+    management.start();
+
+    WeakReference<ClassLoader> reference = reloadOnce(management);
+    Set<String> reloaded = management.reload(InterceptionTest.class.getClassLoader());
+    assertEquals(Set.of(Repository.class.getName(), Service.class.getName()), reloaded);
+    management.component(Repository.class).orElseThrow().count();
+    management.stop();
+
+    // The same method in every class definition is a single row.
+    Map<String, MethodMetrics> metrics = latency.metrics().stream()
+        .collect(Collectors.toMap(MethodMetrics::method, Function.identity()));
+    assertEquals(2, metrics.get(Repository.class.getName() + "#count()").calls());
+    assertEquals(3, metrics.get(Repository.class.getName() + "#start()").calls());
+
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (reference.get() != null && System.nanoTime() < deadline) {
+      System.gc();
+      Thread.sleep(10);
+    }
+
+    assertNull(reference.get(), "The interceptor must not retain the reloaded class loader!");
+  }
+
+  private WeakReference<ClassLoader> reloadOnce(LifecycleManagement management) throws Exception {
+    ClassLoader loader = new Redefining(Repository.class.getName(), Service.class.getName());
+    assertEquals(Set.of(Repository.class.getName(), Service.class.getName()), management.reload(loader));
+
+    Object repository = management.component(loader.loadClass(Repository.class.getName())).orElseThrow();
+    assertEquals(Long.MAX_VALUE, repository.getClass().getMethod("count").invoke(repository));
+    return new WeakReference<>(loader);
+  }
+
+  @Test
+  public void testHistogramBuckets() {
+    long[] buckets = new long[MethodMetrics.BUCKETS];
+    buckets[4] = 99;
+    buckets[10] = 1;
+    MethodMetrics metrics = new MethodMetrics("method", buckets, 0, 2_000);
+
+    assertEquals(100, metrics.calls());
+    assertEquals(20, metrics.meanNanos());
+    assertEquals(15, metrics.percentileNanos(50));
+    assertEquals(15, metrics.percentileNanos(99));
+    assertEquals(1023, metrics.percentileNanos(100));
+    assertEquals(List.of(), new LatencyInterceptor().metrics());
+  }
+
+  @Managed
+  static class Service {
+
+    @Inject
+    private Repository repository;
+
+    public String find(int id) {
+      return repository.find(id);
+    }
+  }
+
+  @Managed
+  static class Repository {
+    private int started = 0;
+
+    @Start
+    public void start() {
+      started++;
+    }
+
+    public String find(int id) {
+      return "item-" + id;
+    }
+
+    public double ratio(double value, long divisor) {
+      return value / divisor;
+    }
+
+    public long count() {
+      return Long.MAX_VALUE;
+    }
+
+    public void fail() {
+      throw new IllegalStateException("Failed!");
+    }
+
+    int internal() {
+      return 3;
+    }
+  }
+
+  /**
+   * Defines the given classes again from the same bytes, and delegates everything else.
+   */
+  private static final class Redefining extends ClassLoader {
+    private final Set<String> names;
+
+    private Redefining(String... names) {
+      super(InterceptionTest.class.getClassLoader());
+      this.names = Set.of(names);
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+      if (!names.contains(name)) {
+        return super.loadClass(name, resolve);
+      }
+
+      synchronized (getClassLoadingLock(name)) {
+        Class<?> loaded = findLoadedClass(name);
+        if (loaded != null) {
+          return loaded;
+        }
+
+        try (InputStream input = getParent().getResourceAsStream(name.replace('.', '/') + ".class")) {
+          byte[] bytes = input.readAllBytes();
+          return defineClass(name, bytes, 0, bytes.length);
+        } catch (IOException e) {
+          throw new ClassNotFoundException(name, e);
+        }
+      }
+    }
+  }
+}
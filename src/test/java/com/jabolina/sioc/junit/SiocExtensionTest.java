@@ -0,0 +1,120 @@
+/*
+ * Copyright 2022-present jabolina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jabolina.sioc.junit;
+
+import com.jabolina.sioc.Inject;
+import com.jabolina.sioc.Managed;
+import com.jabolina.sioc.Start;
+import com.jabolina.sioc.Stop;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SiocTest
+public class SiocExtensionTest {
+
+  private static final AtomicReference<Component> SHARED = new AtomicReference<>();
+  private static final Set<Component> FRESH =
+      Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+
+  @Inject
+  private Component component;
+
+  @Test
+  public void testComponentInjected() {
+    assertNotNull(component);
+    assertNotNull(component.dependency);
+    assertTrue(component.running);
+    verifyShared(component);
+  }
+
+  @Test
+  public void testSharedBetweenTests() {
+    verifyShared(component);
+  }
+
+  private static void verifyShared(Component component) {
+    SHARED.compareAndSet(null, component);
+    assertSame(SHARED.get(), component);
+  }
+
+  @Nested
+  class SharedBetweenClasses {
+
+    @Inject
+    private Component component;
+
+    @Test
+    public void testSharedBetweenClasses() {
+      assertTrue(component.running);
+      verifyShared(component);
+    }
+  }
+
+  @Nested
+  @SiocTest(fresh = true)
+  class FreshContainer {
+
+    @Inject
+    private Component component;
+
+    @Test
+    public void testFreshContainer() {
+      verifyFresh();
+    }
+
+    @Test
+    public void testAnotherFreshContainer() {
+      verifyFresh();
+    }
+
+    private void verifyFresh() {
+      assertTrue(component.running);
+      assertFalse(component == SHARED.get());
+      assertTrue(FRESH.add(component));
+    }
+  }
+
+  @Managed
+  static class Component {
+    private volatile boolean running = false;
+
+    @Inject
+    private Dependency dependency;
+
+    @Start
+    public void start() {
+      running = true;
+    }
+
+    @Stop
+    public void stop() {
+      running = false;
+    }
+  }
+
+  @Managed
+  static class Dependency { }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2022-present jabolina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jabolina.sioc.metrics;
+
+import com.jabolina.sioc.Configuration;
+import com.jabolina.sioc.Inject;
+import com.jabolina.sioc.LifecycleManagement;
+import com.jabolina.sioc.Managed;
+import com.jabolina.sioc.Start;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class AllocationTrackerTest {
+
+  private static final int ONE_MB = 1024 * 1024;
+
+  @Test
+  public void testAllocationReport() {
+    assumeTrue(AllocationTracker.isSupported(), "JVM does not support thread allocation measurement");
+
+    Configuration configuration = Configuration.defaults().withAllocationTracking(true);
+    LifecycleManagement management = new LifecycleManagement(this.getClass().getPackageName(), configuration);
+    management.initialize();
+    management.start();
+    management.stop();
+
+    List<AllocationReport.Entry> entries = management.allocationReport().entries();
+    assertEquals(3, entries.size());
+    assertEquals(Heavy.class.getName(), entries.get(0).component());
+    assertTrue(entries.get(0).construction() >= 4 * ONE_MB);
+    assertEquals("lazy", entries.get(1).component());
+    assertTrue(entries.get(1).start() >= ONE_MB);
+    assertEquals(Light.class.getName(), entries.get(2).component());
+  }
+
+  @Test
+  public void testDisabledByDefault() {
+    LifecycleManagement management = new LifecycleManagement(this.getClass().getPackageName());
+    management.initialize();
+    management.start();
+    management.stop();
+
+    assertTrue(management.allocationReport().entries().isEmpty());
+  }
+
+  @Managed
+  static class Heavy {
+    private final byte[] buffer = new byte[4 * ONE_MB];
+
+    @Inject
+    private Light light;
+  }
+
+  @Managed(name = "lazy")
+  static class Lazy {
+    private byte[] buffer;
+
+    @Start
+    public void start() {
+      buffer = new byte[ONE_MB];
+    }
+  }
+
+  @Managed
+  static class Light { }
+}
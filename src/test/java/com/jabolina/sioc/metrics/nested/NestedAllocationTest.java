@@ -0,0 +1,104 @@
+/*
+ * Copyright 2022-present jabolina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jabolina.sioc.metrics.nested;
+
+import com.jabolina.sioc.Configuration;
+import com.jabolina.sioc.Inject;
+import com.jabolina.sioc.LifecycleManagement;
+import com.jabolina.sioc.Managed;
+import com.jabolina.sioc.Pool;
+import com.jabolina.sioc.Scope;
+import com.jabolina.sioc.Start;
+import com.jabolina.sioc.metrics.AllocationReport;
+import com.jabolina.sioc.metrics.AllocationTracker;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class NestedAllocationTest {
+
+  private static final int ONE_MB = 1024 * 1024;
+
+  @Test
+  public void testAccountNestedCreationsOnce() {
+    assumeTrue(AllocationTracker.isSupported(), "JVM does not support thread allocation measurement");
+
+    Configuration configuration = Configuration.defaults().withAllocationTracking(true);
+    LifecycleManagement management = new LifecycleManagement(this.getClass().getPackageName(), configuration);
+    management.initialize();
+    management.start();
+
+    // The holder injection creates a buffer, and the borrower start creates a block after emptying the pool.
+    Map<String, AllocationReport.Entry> entries = entries(management);
+    assertBetween(ONE_MB, 2 * ONE_MB, entries.get("buffer").construction());
+    assertBetween(2 * ONE_MB, 3 * ONE_MB, entries.get("block").construction());
+    assertBetween(0, ONE_MB, entries.get("holder").injection());
+    assertBetween(0, ONE_MB, entries.get("borrower").start());
+    assertBetween(3 * ONE_MB, 4 * ONE_MB, management.allocationReport().total());
+
+    // Instances created after the start are not accounted.
+    long total = management.allocationReport().total();
+    management.component(Buffer.class).orElseThrow();
+    management.component(Borrower.class).orElseThrow().blocks.borrow();
+    assertEquals(total, management.allocationReport().total());
+    management.stop();
+  }
+
+  private static void assertBetween(long minimum, long maximum, long value) {
+    assertTrue(value >= minimum && value < maximum, () -> value + " not in [" + minimum + ", " + maximum + ")");
+  }
+
+  private static Map<String, AllocationReport.Entry> entries(LifecycleManagement management) {
+    return management.allocationReport().entries().stream()
+        .collect(Collectors.toMap(AllocationReport.Entry::component, Function.identity()));
+  }
+
+  @Managed(name = "buffer", scope = Scope.PROTOTYPE)
+  static class Buffer {
+    private final byte[] bytes = new byte[ONE_MB];
+  }
+
+  @Managed(name = "block", scope = Scope.POOLED, instances = 1)
+  static class Block {
+    private final byte[] bytes = new byte[ONE_MB];
+  }
+
+  @Managed(name = "holder")
+  static class Holder {
+
+    @Inject
+    private Buffer buffer;
+  }
+
+  @Managed(name = "borrower")
+  static class Borrower {
+
+    @Inject
+    private Pool<Block> blocks;
+
+    @Start
+    public void start() {
+      blocks.borrow();
+      blocks.borrow();
+    }
+  }
+}
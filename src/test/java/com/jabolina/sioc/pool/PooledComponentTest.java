@@ -0,0 +1,126 @@
+/*
+ * Copyright 2022-present jabolina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jabolina.sioc.pool;
+
+import com.jabolina.sioc.Inject;
+import com.jabolina.sioc.LifecycleManagement;
+import com.jabolina.sioc.Managed;
+import com.jabolina.sioc.Pool;
+import com.jabolina.sioc.Scope;
+import com.jabolina.sioc.metrics.PoolMetrics;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PooledComponentTest {
+
+  @Test
+  public void testPooledComponent() {
+    LifecycleManagement management = new LifecycleManagement(this.getClass().getPackageName());
+    management.initialize();
+
+    Service service = management.component(Service.class).orElseThrow();
+    Pool<Parser> parsers = service.parsers;
+    assertEquals(2, parsers.capacity());
+    assertEquals(0, parsers.available());
+
+    management.start();
+    assertEquals(2, parsers.available());
+
+    Parser first = parsers.borrow();
+    Parser second = parsers.borrow();
+    Parser third = parsers.borrow();
+    assertNotSame(first, second);
+    assertSame(service.dependency, third.dependency);
+
+    parsers.release(first);
+    parsers.release(second);
+    parsers.release(third);
+    assertEquals(2, parsers.available());
+
+    List<PoolMetrics> metrics = management.poolMetrics();
+    assertEquals(1, metrics.size());
+    assertEquals(Parser.class.getName(), metrics.get(0).component());
+    assertEquals(2, metrics.get(0).hits());
+    assertEquals(1, metrics.get(0).misses());
+
+    Parser borrowed = parsers.borrow();
+    parsers.release(borrowed);
+    assertThrows(IllegalStateException.class, () -> parsers.release(borrowed));
+
+    management.stop();
+    assertEquals(0, parsers.available());
+
+    // Released after the stop, the pool stays drained.
+    parsers.release(first);
+    assertEquals(0, parsers.available());
+  }
+
+  @Test
+  public void testPrototypeComponent() {
+    LifecycleManagement management = new LifecycleManagement(this.getClass().getPackageName());
+    management.initialize();
+
+    Service service = management.component(Service.class).orElseThrow();
+    assertNotNull(service.helper);
+    assertNotNull(service.another);
+    assertNotSame(service.helper, service.another);
+    assertSame(service.dependency, service.helper.dependency);
+
+    Helper helper = management.component(Helper.class).orElseThrow();
+    assertNotSame(service.helper, helper);
+    assertNotSame(service.another, helper);
+  }
+
+  @Managed
+  static class Service {
+
+    @Inject
+    private Pool<Parser> parsers;
+
+    @Inject
+    private Helper helper;
+
+    @Inject
+    private Helper another;
+
+    @Inject
+    private Dependency dependency;
+  }
+
+  @Managed(scope = Scope.POOLED, instances = 2)
+  static class Parser {
+
+    @Inject
+    private Dependency dependency;
+  }
+
+  @Managed(scope = Scope.PROTOTYPE)
+  static class Helper {
+
+    @Inject
+    private Dependency dependency;
+  }
+
+  @Managed
+  static class Dependency { }
+}
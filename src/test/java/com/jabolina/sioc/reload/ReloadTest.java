@@ -0,0 +1,460 @@
+/*
+ * Copyright 2022-present jabolina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jabolina.sioc.reload;
+
+import com.jabolina.sioc.Inject;
+import com.jabolina.sioc.LifecycleManagement;
+import com.jabolina.sioc.Managed;
+import com.jabolina.sioc.Start;
+import com.jabolina.sioc.Stop;
+import com.jabolina.sioc.Striped;
+import com.jabolina.sioc.Subscribe;
+import com.jabolina.sioc.event.EventBus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ReloadTest {
+
+  // Accessed by the classes defined again, so it must be public.
+  public static final List<String> EVENTS = Collections.synchronizedList(new ArrayList<>());
+  public static volatile boolean failConstruction = false;
+
+  @BeforeEach
+  public void clear() {
+    EVENTS.clear();
+    failConstruction = false;
+  }
+
+  @Test
+  public void testReloadWithoutChanges() {
+    LifecycleManagement management = new LifecycleManagement(this.getClass().getPackageName());
+    management.initialize();
+    management.start();
+    Base base = management.component(Base.class).orElseThrow();
+    EVENTS.clear();
+
+    assertTrue(management.reload().isEmpty());
+    assertTrue(EVENTS.isEmpty());
+    assertSame(base, management.component(Base.class).orElseThrow());
+    management.stop();
+  }
+
+  @Test
+  public void testReloadChangedSubgraph() {
+    LifecycleManagement management = new LifecycleManagement(this.getClass().getPackageName());
+    management.initialize();
+    management.start();
+    assertEquals(List.of("start:base", "start:dependent", "start:client"), ordered("base", "dependent", "client"));
+
+    Base base = management.component(Base.class).orElseThrow();
+    Independent independent = management.component(Independent.class).orElseThrow();
+    EVENTS.clear();
+
+    ClassLoader loader = new Redefining(Set.of(Dependent.class.getName(), Client.class.getName()));
+    Set<String> affected = management.reload(loader);
+
+    assertEquals(Set.of("dependent", "client"), affected);
+    assertEquals(List.of("stop:client", "stop:dependent", "start:dependent", "start:client"), EVENTS);
+    assertSame(base, management.component(Base.class).orElseThrow());
+    assertSame(independent, management.component(Independent.class).orElseThrow());
+
+    EVENTS.clear();
+    management.stop();
+    assertEquals(List.of("stop:client", "stop:dependent", "stop:base"), ordered("client", "dependent", "base"));
+  }
+
+  @Test
+  public void testReloadAddedAndRemovedComponent() {
+    LifecycleManagement management = new LifecycleManagement(this.getClass().getPackageName());
+    management.reload(new Hiding(Set.of(Extra.class.getName())));
+    management.start();
+    assertTrue(management.component(Extra.class).isEmpty());
+    Base base = management.component(Base.class).orElseThrow();
+    EVENTS.clear();
+
+    assertEquals(Set.of("extra"), management.reload(ReloadTest.class.getClassLoader()));
+    assertEquals(List.of("start:extra"), EVENTS);
+    assertTrue(management.component(Extra.class).isPresent());
+
+    EVENTS.clear();
+    assertEquals(Set.of("extra"), management.reload(new Hiding(Set.of(Extra.class.getName()))));
+    assertEquals(List.of("stop:extra"), EVENTS);
+    assertTrue(management.component(Extra.class).isEmpty());
+    assertSame(base, management.component(Base.class).orElseThrow());
+    management.stop();
+  }
+
+  @Test
+  public void testReloadTransitiveDependents() throws Exception {
+    LifecycleManagement management = new LifecycleManagement(this.getClass().getPackageName());
+    management.initialize();
+    management.start();
+    Middle middle = management.component(Middle.class).orElseThrow();
+    Top top = management.component(Top.class).orElseThrow();
+    Base base = management.component(Base.class).orElseThrow();
+    EVENTS.clear();
+
+    // Only the leaf changes. The middle depends on it directly, and the top only through the middle.
+    ClassLoader loader = new Redefining(Set.of(Leaf.class.getName()));
+    Set<String> affected = management.reload(loader);
+
+    assertEquals(Set.of("leaf", "middle", "top"), affected);
+    assertEquals(List.of("stop:top", "stop:middle", "stop:leaf", "start:leaf", "start:middle", "start:top"), EVENTS);
+
+    Middle reloadedMiddle = management.component(Middle.class).orElseThrow();
+    Top reloadedTop = management.component(Top.class).orElseThrow();
+    assertNotSame(middle, reloadedMiddle);
+    assertNotSame(top, reloadedTop);
+    assertSame(reloadedMiddle, reloadedTop.middle);
+    Striped<?> leaf = reloadedMiddle.leaf;
+    assertSame(loader.loadClass(Leaf.class.getName()), leaf.get().getClass());
+    assertSame(base, management.component(Base.class).orElseThrow());
+
+    // The old leaf published when it stopped, after the old middle. Events are delivered in order, so once the new
+    // middle receives the next one, the old middle had its chance to receive it.
+    management.events().publish("flush");
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (reloadedMiddle.received == 0 && System.nanoTime() < deadline) {
+      Thread.onSpinWait();
+    }
+    assertEquals(1, reloadedMiddle.received);
+    assertFalse(EVENTS.contains("late:middle"), EVENTS::toString);
+    management.stop();
+  }
+
+  @Test
+  public void testReloadRemovingInjectedDependency() {
+    LifecycleManagement management = new LifecycleManagement(this.getClass().getPackageName());
+    management.initialize();
+    management.start();
+    Dependent dependent = management.component(Dependent.class).orElseThrow();
+    EVENTS.clear();
+
+    // The dependent still injects the base, nothing changes.
+    RuntimeException e = assertThrows(RuntimeException.class,
+        () -> management.reload(new Hiding(Set.of(Base.class.getName()))));
+    assertTrue(e.getMessage().contains(Base.class.getName()), e::getMessage);
+    assertTrue(EVENTS.isEmpty(), EVENTS::toString);
+    assertSame(dependent, management.component(Dependent.class).orElseThrow());
+    assertTrue(management.reload().isEmpty());
+
+    management.stop();
+    assertEquals(List.of("stop:client", "stop:dependent", "stop:base"), ordered("client", "dependent", "base"));
+  }
+
+  @Test
+  public void testReloadAfterWiringFailure() throws Exception {
+    LifecycleManagement management = new LifecycleManagement(this.getClass().getPackageName());
+    management.initialize();
+    management.start();
+    Base base = management.component(Base.class).orElseThrow();
+
+    // The fragile component is wired again, and then its dependent fails.
+    ClassLoader loader = new Redefining(Set.of(Fragile.class.getName()));
+    Class<?> redefined = loader.loadClass(Fragile.class.getName());
+    failConstruction = true;
+    assertThrows(RuntimeException.class, () -> management.reload(loader));
+    assertTrue(management.component(redefined).isEmpty());
+    assertTrue(management.component(Sturdy.class).isEmpty());
+    assertSame(base, management.component(Base.class).orElseThrow());
+
+    // The affected components are wired again, as if they were added.
+    failConstruction = false;
+    assertEquals(Set.of("fragile", "sturdy"), management.reload(loader));
+    assertSame(redefined, management.component(redefined).orElseThrow().getClass());
+    Striped<?> fragile = management.component(Sturdy.class).orElseThrow().fragile;
+    assertSame(redefined, fragile.get().getClass());
+    management.stop();
+  }
+
+  @Test
+  public void testReloadReleasesRemovedClasses() throws Exception {
+    LifecycleManagement management = new LifecycleManagement(this.getClass().getPackageName());
+    management.initialize();
+    management.start();
+
+    WeakReference<ClassLoader> reference = reloadOnce(management);
+    assertEquals(Set.of("scheduler"), management.reload(ReloadTest.class.getClassLoader()));
+    Scheduler scheduler = management.component(Scheduler.class).orElseThrow();
+    assertEquals("scheduled", scheduler.executor.submit(() -> "scheduled").get(10, TimeUnit.SECONDS));
+
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (reference.get() != null && System.nanoTime() < deadline) {
+      System.gc();
+      Thread.sleep(10);
+    }
+
+    assertNull(reference.get(), "The container must not retain the classes removed by a reload!");
+    management.stop();
+  }
+
+  private WeakReference<ClassLoader> reloadOnce(LifecycleManagement management) throws Exception {
+    ClassLoader loader = new Redefining(Set.of(Scheduler.class.getName()));
+    assertEquals(Set.of("scheduler"), management.reload(loader));
+    assertTrue(management.component(loader.loadClass(Scheduler.class.getName())).isPresent());
+    return new WeakReference<>(loader);
+  }
+
+  // Only the events of the given components, the independent component can be anywhere in the order.
+  private static List<String> ordered(String... components) {
+    List<String> names = List.of(components);
+    List<String> events = new ArrayList<>();
+    for (String event : EVENTS) {
+      if (names.contains(event.substring(event.indexOf(':') + 1))) {
+        events.add(event);
+      }
+    }
+
+    return events;
+  }
+
+  @Managed(name = "base")
+  public static class Base {
+
+    @Start
+    public void start() {
+      EVENTS.add("start:base");
+    }
+
+    @Stop
+    public void stop() {
+      EVENTS.add("stop:base");
+    }
+  }
+
+  @Managed(name = "dependent")
+  public static class Dependent {
+
+    @Inject
+    public Base base;
+
+    @Start
+    public void start() {
+      EVENTS.add("start:dependent");
+    }
+
+    @Stop
+    public void stop() {
+      EVENTS.add("stop:dependent");
+    }
+  }
+
+  @Managed(name = "client")
+  public static class Client {
+
+    @Inject
+    public Dependent dependent;
+
+    @Start
+    public void start() {
+      EVENTS.add("start:client");
+    }
+
+    @Stop
+    public void stop() {
+      EVENTS.add("stop:client");
+    }
+  }
+
+  @Managed(name = "independent")
+  public static class Independent {
+
+    @Start
+    public void start() {
+      EVENTS.add("start:independent");
+    }
+
+    @Stop
+    public void stop() {
+      EVENTS.add("stop:independent");
+    }
+  }
+
+  @Managed(name = "extra")
+  public static class Extra {
+
+    @Start
+    public void start() {
+      EVENTS.add("start:extra");
+    }
+
+    @Stop
+    public void stop() {
+      EVENTS.add("stop:extra");
+    }
+  }
+
+  @Managed(name = "fragile")
+  public static class Fragile { }
+
+  @Managed(name = "sturdy")
+  public static class Sturdy {
+
+    @Inject
+    public Striped<Fragile> fragile;
+
+    public Sturdy() {
+      if (failConstruction) {
+        throw new IllegalStateException("Failed constructing!");
+      }
+    }
+  }
+
+  @Managed(name = "scheduler")
+  public static class Scheduler {
+
+    @Inject
+    public ExecutorService executor;
+  }
+
+  @Managed(name = "leaf")
+  public static class Leaf {
+
+    @Inject
+    public EventBus events;
+
+    @Start
+    public void start() {
+      EVENTS.add("start:leaf");
+    }
+
+    @Stop
+    public void stop() {
+      EVENTS.add("stop:leaf");
+      events.publish("stop:leaf");
+    }
+  }
+
+  @Managed(name = "middle")
+  public static class Middle {
+
+    // Declared as Striped, the erased field type accepts the leaf defined again by another loader.
+    @Inject
+    public Striped<Leaf> leaf;
+
+    private volatile boolean stopped = false;
+    private volatile int received = 0;
+
+    @Start
+    public void start() {
+      EVENTS.add("start:middle");
+    }
+
+    @Stop
+    public void stop() {
+      stopped = true;
+      EVENTS.add("stop:middle");
+    }
+
+    @Subscribe
+    public void onEvent(String event) {
+      if (stopped) {
+        EVENTS.add("late:middle");
+      } else {
+        received++;
+      }
+    }
+  }
+
+  @Managed(name = "top")
+  public static class Top {
+
+    @Inject
+    public Middle middle;
+
+    @Start
+    public void start() {
+      EVENTS.add("start:top");
+    }
+
+    @Stop
+    public void stop() {
+      EVENTS.add("stop:top");
+    }
+  }
+
+  /**
+   * Fails to load the given classes, as if they were removed from the package, and delegates everything else.
+   */
+  private static final class Hiding extends ClassLoader {
+    private final Set<String> names;
+
+    private Hiding(Set<String> names) {
+      super(ReloadTest.class.getClassLoader());
+      this.names = names;
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+      if (names.contains(name)) {
+        throw new ClassNotFoundException(name);
+      }
+
+      return super.loadClass(name, resolve);
+    }
+  }
+
+  /**
+   * Defines the given classes again from the same bytes, as a plugin loader would do, and delegates everything else.
+   */
+  private static final class Redefining extends ClassLoader {
+    private final Set<String> names;
+
+    private Redefining(Set<String> names) {
+      super(ReloadTest.class.getClassLoader());
+      this.names = names;
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+      if (!names.contains(name)) {
+        return super.loadClass(name, resolve);
+      }
+
+      synchronized (getClassLoadingLock(name)) {
+        Class<?> loaded = findLoadedClass(name);
+        if (loaded != null) {
+          return loaded;
+        }
+
+        try (InputStream input = getParent().getResourceAsStream(name.replace('.', '/') + ".class")) {
+          byte[] bytes = input.readAllBytes();
+          return defineClass(name, bytes, 0, bytes.length);
+        } catch (IOException e) {
+          throw new ClassNotFoundException(name, e);
+        }
+      }
+    }
+  }
+}
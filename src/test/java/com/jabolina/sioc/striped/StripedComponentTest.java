@@ -0,0 +1,125 @@
+/*
+ * Copyright 2022-present jabolina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jabolina.sioc.striped;
+
+import com.jabolina.sioc.Inject;
+import com.jabolina.sioc.LifecycleManagement;
+import com.jabolina.sioc.Managed;
+import com.jabolina.sioc.Scope;
+import com.jabolina.sioc.Start;
+import com.jabolina.sioc.Stop;
+import com.jabolina.sioc.Striped;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StripedComponentTest {
+
+  private static final AtomicInteger STARTED = new AtomicInteger();
+  private static final AtomicInteger STOPPED = new AtomicInteger();
+
+  @Test
+  public void testStripedComponent() throws Exception {
+    LifecycleManagement management = new LifecycleManagement(this.getClass().getPackageName());
+    management.initialize();
+    management.start();
+    assertEquals(4, STARTED.get());
+
+    Service service = management.component(Service.class).orElseThrow();
+    assertEquals(4, service.counters.size());
+    assertEquals(1, service.singleton.size());
+    assertSame(management.component(Singleton.class).orElseThrow(), service.singleton.get());
+
+    // Every counter is injected with the singleton.
+    for (int i = 0; i < service.counters.size(); i++) {
+      assertSame(service.singleton.get(), service.counters.get(i).singleton);
+    }
+
+    // The same thread always receives the same instance.
+    assertSame(service.counters.get(), service.counters.get());
+
+    Set<Counter> selected = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+    ExecutorService executor = Executors.newFixedThreadPool(16);
+    try {
+      for (int i = 0; i < 16; i++) {
+        Future<?> future = executor.submit(() -> {
+          Counter counter = service.counters.get();
+          counter.increment();
+          selected.add(counter);
+        });
+        future.get(10, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertTrue(selected.size() > 1);
+    int total = 0;
+    for (int i = 0; i < service.counters.size(); i++) {
+      total += service.counters.get(i).value;
+    }
+    assertEquals(16, total);
+
+    management.stop();
+    assertEquals(4, STOPPED.get());
+  }
+
+  @Managed
+  static class Service {
+
+    @Inject
+    private Striped<Counter> counters;
+
+    @Inject
+    private Striped<Singleton> singleton;
+  }
+
+  @Managed(scope = Scope.STRIPED, instances = 4)
+  static class Counter {
+    private int value;
+
+    @Inject
+    private Singleton singleton;
+
+    public void increment() {
+      value++;
+    }
+
+    @Start
+    public void start() {
+      STARTED.incrementAndGet();
+    }
+
+    @Stop
+    public void stop() {
+      STOPPED.incrementAndGet();
+    }
+  }
+
+  @Managed
+  static class Singleton { }
+}